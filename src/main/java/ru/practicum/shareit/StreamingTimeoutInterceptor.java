@@ -0,0 +1,38 @@
+package ru.practicum.shareit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Component
+public class StreamingTimeoutInterceptor implements AsyncHandlerInterceptor {
+    private final long timeout;
+
+    public StreamingTimeoutInterceptor(@Value("${shareit.streaming.request-timeout-ms:600000}") long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (handler instanceof HandlerMethod && isStreaming(((HandlerMethod) handler).getReturnType())) {
+            request.getAsyncContext().setTimeout(timeout);
+        }
+    }
+
+    private boolean isStreaming(MethodParameter returnType) {
+        Class<?> type = returnType.getParameterType();
+        if (ResponseEntity.class.equals(type)) {
+            type = ResolvableType.forMethodParameter(returnType).getGeneric().resolve();
+        }
+        return type != null && StreamingResponseBody.class.isAssignableFrom(type);
+    }
+}
@@ -2,16 +2,33 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.model.ExportFormat;
+import ru.practicum.shareit.booking.service.BookingExporter;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.user.Caller;
+import ru.practicum.shareit.util.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -19,12 +36,22 @@ import java.util.Collection;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
 
     @PostMapping
     public BookingDtoOutput createBooking(@Valid @RequestBody BookingDtoInput bookingDtoInput,
-                                          @RequestHeader("X-Sharer-User-Id") @NotNull long bookerId) {
+                                          Caller booker) {
         log.info("создано бронироваине: " + bookingDtoInput);
-        return bookingService.createBooking(bookingDtoInput, bookerId);
+        return bookingService.createBooking(bookingDtoInput, booker.getId());
+    }
+
+    @PostMapping("batch")
+    public List<BookingBatchResultDto> createBookings(@Valid @RequestBody BookingBatchDto bookingBatchDto,
+                                                      Caller booker,
+                                                      @RequestParam(defaultValue = "false") boolean partial) {
+        log.info("пакетное создание бронирований: " + bookingBatchDto.getBookings().size() +
+                " пользователем под id: " + booker.getId());
+        return bookingService.createBookings(bookingBatchDto.getBookings(), booker.getId(), partial);
     }
 
     @GetMapping("{bookingId}")
@@ -35,6 +62,17 @@ public class BookingController {
         return bookingService.getBooking(bookingId, userId);
     }
 
+    @PatchMapping("approve")
+    public List<BookingApproveResultDto> approveAll(
+            @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+            @Valid @RequestBody BookingApproveDto bookingApproveDto
+    ) {
+        log.info("пользователем под id: " + userId + " изменен статус брони: " + bookingApproveDto.getApproved() +
+                " для бронирований: " + bookingApproveDto.getBookingIds());
+        return bookingService.approveBookings(bookingApproveDto.getBookingIds(), userId,
+                bookingApproveDto.getApproved());
+    }
+
     @PatchMapping("{bookingId}")
     public BookingDtoOutput approve(
             @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
@@ -48,21 +86,68 @@ public class BookingController {
 
     @GetMapping
     public Collection<BookingDtoOutput> getAllBookingByUser(
-            @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+            Caller user,
             @RequestParam(defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
-            @Positive @RequestParam(name = "size", required = false) Integer size) {
-        log.info("получение всех бронирований пользователем под id: " + userId);
-        return bookingService.getAllBookingByUser(userId, state, from, size);
+            @Positive @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletResponse response) {
+        log.info("получение всех бронирований пользователем под id: " + user.getId());
+        Collection<BookingDtoOutput> bookings = cursor == null
+                ? bookingService.getAllBookingByUser(user.getId(), state, from, size)
+                : bookingService.getAllBookingByUserAfterCursor(user.getId(), state, cursor, size);
+        setNextCursor(response, bookings);
+        return bookings;
     }
 
     @GetMapping("/owner")
     public Collection<BookingDtoOutput> getAllBookingByOwner(
-            @RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
+            Caller owner,
             @RequestParam(defaultValue = "ALL") String state,
             @PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
-            @Positive @RequestParam(name = "size", required = false) Integer size) {
-        log.info("получение владельцом под id: " + ownerId + " списка бронирования своих вещей");
-        return bookingService.getAllBookingByOwner(ownerId, state, from, size);
+            @Positive @RequestParam(name = "size", required = false) Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            HttpServletResponse response) {
+        log.info("получение владельцом под id: " + owner.getId() + " списка бронирования своих вещей");
+        Collection<BookingDtoOutput> bookings = cursor == null
+                ? bookingService.getAllBookingByOwner(owner.getId(), state, from, size)
+                : bookingService.getAllBookingByOwnerAfterCursor(owner.getId(), state, cursor, size);
+        setNextCursor(response, bookings);
+        return bookings;
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByUser(
+            Caller user,
+            @RequestParam(defaultValue = "NDJSON") String format) {
+        log.info("выгрузка истории бронирований пользователя под id: " + user.getId() + " в формате " + format);
+        return export(user.getId(), false, format);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByOwner(
+            Caller owner,
+            @RequestParam(defaultValue = "NDJSON") String format) {
+        log.info("выгрузка истории бронирований вещей владельца под id: " + owner.getId() + " в формате " + format);
+        return export(owner.getId(), true, format);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Long userId, boolean byOwner, String format) {
+        if (!ObjectUtils.containsConstant(ExportFormat.values(), format)) {
+            throw new BadRequestException("Unknown format: " + format);
+        }
+        ExportFormat exportFormat = ObjectUtils.caseInsensitiveValueOf(ExportFormat.values(), format);
+        String fileName = "bookings." + exportFormat.name().toLowerCase() + ".gz";
+        StreamingResponseBody body = out -> bookingExporter.export(userId, byOwner, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build()
+                        .toString())
+                .body(body);
+    }
+
+    private void setNextCursor(HttpServletResponse response, Collection<BookingDtoOutput> bookings) {
+        bookings.stream().reduce((first, second) -> second).ifPresent(last ->
+                response.setHeader(Cursor.HEADER, Cursor.of(last.getEnd(), last.getId()).encode()));
     }
 }
\ No newline at end of file
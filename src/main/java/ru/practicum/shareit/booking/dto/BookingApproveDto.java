@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Builder
+public class BookingApproveDto {
+    @NotEmpty
+    private List<@NotNull Long> bookingIds;
+    @NotNull
+    private Boolean approved;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+import ru.practicum.shareit.booking.model.Status;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@Builder
+public class BookingApproveResultDto {
+    private Long id;
+    private Status status;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@Builder
+public class BookingBatchResultDto {
+    private BookingDtoOutput booking;
+    private String error;
+}
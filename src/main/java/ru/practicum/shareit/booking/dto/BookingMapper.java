@@ -1,11 +1,16 @@
 package ru.practicum.shareit.booking.dto;
 
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.temporal.ChronoUnit;
+
 public class BookingMapper {
 
     public static BookingDtoItem toBookingDtoItem(Booking booking) {
@@ -30,12 +35,45 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDtoOutput toBookingDtoOutput(ArchivedBooking booking) {
+        return BookingDtoOutput.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .status(booking.getStatus())
+                .item(ItemMapper.toItemDto(booking.getItem()))
+                .booker(UserMapper.toUserDto(booking.getBooker()))
+                .build();
+    }
+
+    public static BookingDtoOutput toBookingDtoOutput(BookingView booking) {
+        return BookingDtoOutput.builder()
+                .id(booking.getId())
+                .start(booking.getStartTime())
+                .end(booking.getEndTime())
+                .status(booking.getStatus())
+                .item(ItemDto.builder()
+                        .id(booking.getItemId())
+                        .name(booking.getItemName())
+                        .description(booking.getItemDescription())
+                        .available(booking.getItemAvailable())
+                        .requestId(booking.getItemRequestId())
+                        .build())
+                .booker(UserDto.builder()
+                        .id(booking.getBookerId())
+                        .name(booking.getBookerName())
+                        .email(booking.getBookerEmail())
+                        .build())
+                .build();
+    }
+
     public static Booking fromBookingDtoInput(BookingDtoInput bookingDtoInput, User user, Item item) {
         return Booking.builder()
-                .start(bookingDtoInput.getStart())
-                .end(bookingDtoInput.getEnd())
+                .start(bookingDtoInput.getStart().truncatedTo(ChronoUnit.MICROS))
+                .end(bookingDtoInput.getEnd().truncatedTo(ChronoUnit.MICROS))
                 .item(item)
                 .booker(user)
+                .ownerId(item.getOwner().getId())
                 .build();
     }
 }
\ No newline at end of file
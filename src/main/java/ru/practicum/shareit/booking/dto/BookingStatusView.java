@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.Status;
+
+import java.time.LocalDateTime;
+
+public interface BookingStatusView {
+    Long getId();
+
+    Long getItemId();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+
+    Status getStatus();
+}
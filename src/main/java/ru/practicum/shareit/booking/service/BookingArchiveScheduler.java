@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.StatsSource;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingArchiveScheduler implements StatsSource {
+    private final BookingService bookingService;
+    private final AtomicLong archivedTotal = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    @Value("${shareit.booking.archive.batch-size:500}")
+    private int batchSize;
+    @Value("${shareit.booking.archive.after-days:90}")
+    private int afterDays;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval-ms:3600000}",
+            initialDelayString = "${shareit.booking.archive.interval-ms:3600000}")
+    public void archiveFinishedBookings() {
+        LocalDateTime endBefore = LocalDateTime.now().minusDays(afterDays);
+        long archived = 0;
+        int batch;
+        do {
+            batch = bookingService.archiveFinishedBookings(endBefore, batchSize);
+            archived += batch;
+        } while (batch == batchSize);
+        runs.incrementAndGet();
+        if (archived > 0) {
+            log.info("перенесено в архив завершенных бронирований: " + archived + ", всего: " +
+                    archivedTotal.addAndGet(archived));
+        }
+    }
+
+    public long getArchivedTotal() {
+        return archivedTotal.get();
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    @Override
+    public String getStats() {
+        return "архивация бронирований: запусков " + getRuns() + ", перенесено " + getArchivedTotal();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.StatsSource;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpiryScheduler implements StatsSource {
+    private final BookingService bookingService;
+    private final AtomicLong expiredTotal = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    @Value("${shareit.booking.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval-ms:60000}",
+            initialDelayString = "${shareit.booking.expiry.interval-ms:60000}")
+    public void expireWaitingBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        long expired = 0;
+        int batch;
+        do {
+            batch = bookingService.expireWaitingBookings(now, batchSize);
+            expired += batch;
+        } while (batch == batchSize);
+        runs.incrementAndGet();
+        if (expired > 0) {
+            log.info("отклонено просроченных бронирований в статусе WAITING: " + expired + ", всего: " +
+                    expiredTotal.addAndGet(expired));
+        }
+    }
+
+    public long getExpiredTotal() {
+        return expiredTotal.get();
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    @Override
+    public String getStats() {
+        return "истечение бронирований: запусков " + getRuns() + ", отклонено " + getExpiredTotal();
+    }
+}
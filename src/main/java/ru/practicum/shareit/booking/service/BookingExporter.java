@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.model.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+@RequiredArgsConstructor
+public class BookingExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email";
+    private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+
+    public long export(Long userId, boolean byOwner, ExportFormat format, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        AtomicLong rows = new AtomicLong();
+        try {
+            bookingService.exportBookings(userId, byOwner, booking -> {
+                try {
+                    writer.write(format == ExportFormat.CSV ? toCsv(booking) : objectMapper.writeValueAsString(booking));
+                    writer.write('\n');
+                    rows.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        gzip.finish();
+        return rows.get();
+    }
+
+    private String toCsv(BookingDtoOutput booking) {
+        return booking.getId() + "," + booking.getStart() + "," + booking.getEnd() + "," + booking.getStatus() + "," +
+                booking.getItem().getId() + "," + escape(booking.getItem().getName()) + "," +
+                booking.getBooker().getId() + "," + escape(booking.getBooker().getName()) + "," +
+                escape(booking.getBooker().getEmail());
+    }
+
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
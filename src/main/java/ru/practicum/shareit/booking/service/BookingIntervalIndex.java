@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final List<Status> ACTIVE_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+    private final BookingRepository bookingRepository;
+    private final Map<Long, NavigableMap<LocalDateTime, Span>> timelines = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public boolean reserve(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return withTimeline(itemId, true, timeline -> {
+            Map.Entry<LocalDateTime, Span> previous = timeline.lowerEntry(end);
+            if (previous != null && previous.getValue().end.isAfter(start)) {
+                return false;
+            }
+            Span span = new Span(start, end);
+            span.bookings.add(Map.entry(start, end));
+            timeline.put(start, span);
+            return true;
+        });
+    }
+
+    public NavigableMap<LocalDateTime, LocalDateTime> getIntervals(Long itemId, LocalDateTime from,
+                                                                   LocalDateTime to) {
+        return withTimeline(itemId, true, timeline -> {
+            Map.Entry<LocalDateTime, Span> previous = timeline.lowerEntry(from);
+            LocalDateTime fromKey = previous != null && previous.getValue().end.isAfter(from)
+                    ? previous.getKey() : from;
+            NavigableMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>();
+            for (Span span : timeline.subMap(fromKey, true, to, false).values()) {
+                intervals.put(span.start, span.end);
+            }
+            return intervals;
+        });
+    }
+
+    public void release(Long itemId, LocalDateTime start, LocalDateTime end) {
+        withTimeline(itemId, false, timeline -> {
+            Map.Entry<LocalDateTime, Span> entry = timeline.floorEntry(start);
+            if (entry == null || !entry.getValue().bookings.remove(Map.entry(start, end))) {
+                return null;
+            }
+            timeline.remove(entry.getKey());
+            merge(timeline, entry.getValue().bookings);
+            return null;
+        });
+    }
+
+    public void releaseOnRollback(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(itemId, start, end);
+                }
+            }
+        });
+    }
+
+    public void releaseAfterCommit(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(itemId, start, end);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(itemId, start, end);
+            }
+        });
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    private <T> T withTimeline(Long itemId, boolean load, Function<NavigableMap<LocalDateTime, Span>, T> action) {
+        while (true) {
+            AtomicReference<T> result = new AtomicReference<>();
+            AtomicBoolean applied = new AtomicBoolean();
+            timelines.computeIfPresent(itemId, (id, timeline) -> {
+                prune(timeline, LocalDateTime.now());
+                result.set(action.apply(timeline));
+                applied.set(true);
+                if (timeline.isEmpty()) {
+                    evictions.incrementAndGet();
+                    return null;
+                }
+                return timeline;
+            });
+            if (applied.get() || !load) {
+                return result.get();
+            }
+            long evicted = evictions.get();
+            NavigableMap<LocalDateTime, Span> loaded = loadTimeline(itemId);
+            if (evictions.get() == evicted) {
+                timelines.putIfAbsent(itemId, loaded);
+            }
+        }
+    }
+
+    private NavigableMap<LocalDateTime, Span> loadTimeline(Long itemId) {
+        List<Map.Entry<LocalDateTime, LocalDateTime>> bookings = new ArrayList<>();
+        for (Booking booking : bookingRepository.findAllByItem_IdAndStatusInAndEndAfter(itemId, ACTIVE_STATUSES,
+                LocalDateTime.now())) {
+            bookings.add(Map.entry(booking.getStart(), booking.getEnd()));
+        }
+        NavigableMap<LocalDateTime, Span> timeline = new TreeMap<>();
+        merge(timeline, bookings);
+        return timeline;
+    }
+
+    private void prune(NavigableMap<LocalDateTime, Span> timeline, LocalDateTime now) {
+        while (!timeline.isEmpty() && timeline.firstEntry().getValue().end.isBefore(now)) {
+            timeline.pollFirstEntry();
+        }
+    }
+
+    private void merge(NavigableMap<LocalDateTime, Span> timeline,
+                       List<Map.Entry<LocalDateTime, LocalDateTime>> bookings) {
+        bookings.sort(Map.Entry.comparingByKey());
+        Span span = null;
+        for (Map.Entry<LocalDateTime, LocalDateTime> booking : bookings) {
+            if (span == null || !booking.getKey().isBefore(span.end)) {
+                span = new Span(booking.getKey(), booking.getValue());
+                timeline.put(span.start, span);
+            } else if (booking.getValue().isAfter(span.end)) {
+                span.end = booking.getValue();
+            }
+            span.bookings.add(booking);
+        }
+    }
+
+    private static class Span {
+        private final LocalDateTime start;
+        private final List<Map.Entry<LocalDateTime, LocalDateTime>> bookings = new ArrayList<>();
+        private LocalDateTime end;
+
+        private Span(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -1,38 +1,59 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.Cursor;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
 public class BookingService {
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Transactional
     public BookingDtoOutput createBooking(BookingDtoInput bookingDtoInput, Long userId) {
@@ -43,7 +64,55 @@ public class BookingService {
         Booking booking = BookingMapper.fromBookingDtoInput(bookingDtoInput, user, item);
         booking.setStatus(Status.WAITING);
         checkBookingBeforeSave(booking);
-        return BookingMapper.toBookingDtoOutput(bookingRepository.save(booking));
+        if (!bookingIntervalIndex.reserve(item.getId(), booking.getStart(), booking.getEnd())) {
+            throw new ConflictException("Предмет уже забронирован на это время");
+        }
+        try {
+            booking = bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            bookingIntervalIndex.release(item.getId(), booking.getStart(), booking.getEnd());
+            throw e;
+        }
+        bookingIntervalIndex.releaseOnRollback(item.getId(), booking.getStart(), booking.getEnd());
+        return BookingMapper.toBookingDtoOutput(booking);
+    }
+
+    @Transactional
+    public List<BookingBatchResultDto> createBookings(List<BookingDtoInput> bookingDtoInputs, Long userId,
+                                                      boolean partial) {
+        User user = userRepository.findById(userId).orElseThrow(() ->
+                new NotFoundException("Пользователь с id " + userId + " не найден"));
+        Map<Long, Item> items = itemRepository.findAllWithOwnerByIdIn(bookingDtoInputs.stream()
+                        .map(BookingDtoInput::getItemId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>();
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        for (BookingDtoInput bookingDtoInput : bookingDtoInputs) {
+            try {
+                Item item = items.get(bookingDtoInput.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Предмет с id " + bookingDtoInput.getItemId() + " не найден");
+                }
+                Booking booking = BookingMapper.fromBookingDtoInput(bookingDtoInput, user, item);
+                booking.setStatus(Status.WAITING);
+                checkBookingBeforeSave(booking);
+                if (!bookingIntervalIndex.reserve(item.getId(), booking.getStart(), booking.getEnd())) {
+                    throw new ConflictException("Предмет уже забронирован на это время");
+                }
+                bookingIntervalIndex.releaseOnRollback(item.getId(), booking.getStart(), booking.getEnd());
+                bookings.add(booking);
+                results.add(new BookingBatchResultDto());
+            } catch (NotFoundException | BadRequestException | ConflictException e) {
+                if (!partial) {
+                    throw e;
+                }
+                results.add(BookingBatchResultDto.builder().error(e.getMessage()).build());
+            }
+        }
+        Iterator<Booking> saved = bookingRepository.saveAll(bookings).iterator();
+        results.stream().filter(result -> result.getError() == null)
+                .forEach(result -> result.setBooking(BookingMapper.toBookingDtoOutput(saved.next())));
+        return results;
     }
 
     private void checkBookingBeforeSave(Booking booking) {
@@ -59,137 +128,252 @@ public class BookingService {
         if (booking.getEnd().isBefore(LocalDateTime.now())) {
             throw new BadRequestException("Время окончания не может быть в прошлом");
         }
-        if (booking.getEnd().isBefore(booking.getStart())) {
+        if (!booking.getEnd().isAfter(booking.getStart())) {
             throw new BadRequestException("Время начала после времени окончания");
         }
     }
 
     @Transactional(readOnly = true)
     public BookingDtoOutput getBooking(Long bookingId, Long userId) {
-        Booking booking = getBooking(bookingId);
-        if (Objects.equals(booking.getBooker().getId(), userId) ||
-                Objects.equals(booking.getItem().getOwner().getId(), userId)) {
-            return BookingMapper.toBookingDtoOutput(booking);
+        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        if (booking.isEmpty()) {
+            return getArchivedBooking(bookingId, userId);
+        }
+        if (Objects.equals(booking.get().getBooker().getId(), userId) ||
+                Objects.equals(booking.get().getItem().getOwner().getId(), userId)) {
+            return BookingMapper.toBookingDtoOutput(booking.get());
         }
         throw new NotFoundException("Неверный пользователь");
     }
 
-    private Booking getBooking(Long bookingId) {
-        return bookingRepository.findById(bookingId)
+    private BookingDtoOutput getArchivedBooking(Long bookingId, Long userId) {
+        ArchivedBooking booking = archivedBookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Букинг с id " + bookingId + " не найден"));
+        if (Objects.equals(booking.getBooker().getId(), userId) || Objects.equals(booking.getOwnerId(), userId)) {
+            return BookingMapper.toBookingDtoOutput(booking);
+        }
+        throw new NotFoundException("Неверный пользователь");
     }
 
     @Transactional
     public BookingDtoOutput approveBooking(Long bookingId, Long userId, Boolean approve) {
-        Booking booking = getBooking(bookingId);
-        if (!booking.getStatus().equals(Status.WAITING)) {
+        Status status = approve ? Status.APPROVED : Status.REJECTED;
+        BookingView booking = bookingRepository.findViewByIdAndOwnerId(bookingId, userId)
+                .orElseThrow(() -> new NotFoundException("Букинг с id " + bookingId + " не найден у владельца"));
+        if (!booking.getStatus().equals(Status.WAITING) ||
+                bookingRepository.updateStatus(bookingId, userId, Status.WAITING, status) == 0) {
             throw new BadRequestException("Бронирование уже подтверждено");
         }
-        if (!Objects.equals(booking.getItem().getOwner().getId(), userId)) {
-            throw new NotFoundException("Пользователь не владеет вещью");
+        if (!approve) {
+            bookingIntervalIndex.releaseAfterCommit(booking.getItemId(), booking.getStartTime(),
+                    booking.getEndTime());
+        }
+        BookingDtoOutput result = BookingMapper.toBookingDtoOutput(booking);
+        result.setStatus(status);
+        return result;
+    }
+
+    @Transactional
+    public List<BookingApproveResultDto> approveBookings(List<Long> bookingIds, Long userId, Boolean approve) {
+        Status status = approve ? Status.APPROVED : Status.REJECTED;
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        Map<Long, BookingStatusView> bookings = bookingRepository.findAllForUpdateByIdInAndOwnerId(ids, userId)
+                .stream().collect(Collectors.toMap(BookingStatusView::getId, Function.identity()));
+        List<BookingStatusView> waiting = bookings.values().stream()
+                .filter(booking -> booking.getStatus().equals(Status.WAITING)).collect(Collectors.toList());
+        if (!waiting.isEmpty()) {
+            bookingRepository.updateStatuses(waiting.stream().map(BookingStatusView::getId)
+                    .collect(Collectors.toList()), userId, Status.WAITING, status);
+            if (!approve) {
+                waiting.forEach(booking ->
+                        bookingIntervalIndex.releaseAfterCommit(booking.getItemId(), booking.getStartTime(),
+                                booking.getEndTime()));
+            }
         }
-        booking.setStatus(approve ? Status.APPROVED : Status.REJECTED);
-        return BookingMapper.toBookingDtoOutput(bookingRepository.save(booking));
+        return ids.stream().map(id -> {
+            BookingStatusView booking = bookings.get(id);
+            if (booking == null) {
+                return BookingApproveResultDto.builder().id(id)
+                        .error("Букинг с id " + id + " не найден у владельца").build();
+            }
+            if (!booking.getStatus().equals(Status.WAITING)) {
+                return BookingApproveResultDto.builder().id(id).status(booking.getStatus())
+                        .error("Бронирование уже подтверждено").build();
+            }
+            return BookingApproveResultDto.builder().id(id).status(status).build();
+        }).collect(Collectors.toList());
     }
 
-    private void checkStateAndUser(String state, Long userId) {
+    @Transactional
+    public int expireWaitingBookings(LocalDateTime now, int batchSize) {
+        List<BookingStatusView> expired = bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING,
+                now, CustomPageable.ofSize(batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        int updated = bookingRepository.updateStatuses(expired.stream().map(BookingStatusView::getId)
+                .collect(Collectors.toList()), Status.WAITING, Status.REJECTED);
+        expired.forEach(booking -> bookingIntervalIndex.releaseAfterCommit(booking.getItemId(),
+                booking.getStartTime(), booking.getEndTime()));
+        return updated;
+    }
+
+    @Transactional
+    public int archiveFinishedBookings(LocalDateTime endBefore, int batchSize) {
+        List<Long> ids = bookingRepository.findIdsByEndBefore(endBefore, CustomPageable.ofSize(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedBookingRepository.archiveAllByIdIn(ids);
+        return bookingRepository.deleteAllByIds(ids);
+    }
+
+    private void checkState(String state) {
         if (!ObjectUtils.containsConstant(State.values(), state)) {
             throw new BadRequestException("Unknown state: " + state);
         }
-        userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден"));
     }
 
     @Transactional(readOnly = true)
     public Collection<BookingDtoOutput> getAllBookingByUser(Long userId, String state, Integer from, Integer size) {
-        checkStateAndUser(state, userId);
-        Pageable pageable = CustomPageable.of(from, size);
-        switch (state) {
-            case "ALL":
-                return bookingRepository.findAllByBooker_IdOrderByEndDesc(userId, pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "WAITING":
-                return bookingRepository.findAllByBooker_IdAndStatusOrderByEndDesc(userId, Status.WAITING,
-                                pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "REJECTED":
-                return bookingRepository.findAllByBooker_IdAndStatusOrderByEndDesc(userId, Status.REJECTED,
-                                pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "PAST":
-                List<BookingDtoOutput> pastList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByBooker_IdOrderByEndDesc(userId,
-                        pageable)) {
-                    if (booking.getEnd().isBefore(LocalDateTime.now())) {
-                        pastList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return pastList;
-            case "CURRENT":
-                List<BookingDtoOutput> currentList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByBooker_IdOrderByEndDesc(userId,
-                        pageable)) {
-                    if (booking.getStart().isBefore(LocalDateTime.now()) &&
-                            booking.getEnd().isAfter(LocalDateTime.now())) {
-                        currentList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return currentList;
-            case "FUTURE":
-                List<BookingDtoOutput> futureList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByBooker_IdOrderByEndDesc(userId,
-                        pageable)) {
-                    if (booking.getEnd().isAfter(LocalDateTime.now())) {
-                        futureList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return futureList;
-            default:
-                return new ArrayList<>();
-        }
+        return getAllBooking(userId, false, state, from, size);
     }
 
     @Transactional(readOnly = true)
     public Collection<BookingDtoOutput> getAllBookingByOwner(Long ownerId, String state, Integer from, Integer size) {
-        checkStateAndUser(state, ownerId);
+        return getAllBooking(ownerId, true, state, from, size);
+    }
+
+    private Collection<BookingDtoOutput> getAllBooking(Long userId, boolean byOwner, String state, Integer from,
+                                                       Integer size) {
+        checkState(state);
         Pageable pageable = CustomPageable.of(from, size);
-        switch (state) {
-            case "ALL":
-                return bookingRepository.findAllByOwnerId(ownerId, pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "WAITING":
-                return bookingRepository.findAllByOwnerIdAndStatus(ownerId, Status.WAITING, pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "REJECTED":
-                return bookingRepository.findAllByOwnerIdAndStatus(ownerId, Status.REJECTED, pageable).stream()
-                        .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
-            case "PAST":
-                List<BookingDtoOutput> pastList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByOwnerId(ownerId, pageable)) {
-                    if (booking.getEnd().isBefore(LocalDateTime.now())) {
-                        pastList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return pastList;
-            case "CURRENT":
-                List<BookingDtoOutput> currentList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByOwnerId(ownerId, pageable)) {
-                    if (booking.getStart().isBefore(LocalDateTime.now()) &&
-                            booking.getEnd().isAfter(LocalDateTime.now())) {
-                        currentList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return currentList;
-            case "FUTURE":
-                List<BookingDtoOutput> futureList = new ArrayList<>();
-                for (Booking booking : bookingRepository.findAllByOwnerId(ownerId, pageable)) {
-                    if (booking.getEnd().isAfter(LocalDateTime.now())) {
-                        futureList.add(BookingMapper.toBookingDtoOutput(booking));
-                    }
-                }
-                return futureList;
-            default:
-                return new ArrayList<>();
+        BookingFilter filter = BookingFilter.of(State.valueOf(state), LocalDateTime.now());
+        Page<BookingView> hot = findBookings(userId, byOwner, filter, pageable);
+        List<BookingView> bookings = new ArrayList<>(hot.getContent());
+        int missing = pageable.getPageSize() - bookings.size();
+        if (missing > 0 && filter.includesArchive()) {
+            long offset = Math.max(0, pageable.getOffset() - hot.getTotalElements());
+            Pageable archivePageable = CustomPageable.of((int) offset, missing);
+            bookings.addAll(byOwner
+                    ? archivedBookingRepository.findAllByOwnerId(userId, filter.statuses(), archivePageable)
+                    : archivedBookingRepository.findAllByBookerId(userId, filter.statuses(), archivePageable));
+        }
+        return bookings.stream().map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
+    }
+
+    private Page<BookingView> findBookings(Long userId, boolean byOwner, BookingFilter filter, Pageable pageable) {
+        if (filter.status != null) {
+            return byOwner
+                    ? bookingRepository.findAllByOwnerIdAndStatus(userId, filter.status, pageable)
+                    : bookingRepository.findAllByBookerIdAndStatus(userId, filter.status, pageable);
+        }
+        return byOwner
+                ? bookingRepository.findAllByOwnerId(userId, filter.startAfter, filter.startBefore, filter.endAfter,
+                filter.endBefore, pageable)
+                : bookingRepository.findAllByBookerId(userId, filter.startAfter, filter.startBefore, filter.endAfter,
+                filter.endBefore, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<BookingDtoOutput> getAllBookingByUserAfterCursor(Long userId, String state, String cursor,
+                                                                       Integer size) {
+        return getAllBookingAfterCursor(userId, false, state, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<BookingDtoOutput> getAllBookingByOwnerAfterCursor(Long ownerId, String state, String cursor,
+                                                                        Integer size) {
+        return getAllBookingAfterCursor(ownerId, true, state, cursor, size);
+    }
+
+    private Collection<BookingDtoOutput> getAllBookingAfterCursor(Long userId, boolean byOwner, String state,
+                                                                  String cursor, Integer size) {
+        checkState(state);
+        Cursor after = Cursor.decodeWithTime(cursor);
+        Pageable pageable = CustomPageable.ofSize(size);
+        BookingFilter filter = BookingFilter.of(State.valueOf(state), LocalDateTime.now());
+        List<BookingView> bookings = new ArrayList<>(findBookingsAfterCursor(userId, byOwner, filter, after.getTime(),
+                after.getId(), pageable));
+        int missing = pageable.getPageSize() - bookings.size();
+        if (missing > 0 && filter.includesArchive()) {
+            LocalDateTime cursorEnd = after.getTime();
+            Long cursorId = after.getId();
+            if (!bookings.isEmpty()) {
+                BookingView last = bookings.get(bookings.size() - 1);
+                cursorEnd = last.getEndTime();
+                cursorId = last.getId();
+            }
+            bookings.addAll(byOwner
+                    ? archivedBookingRepository.findAllByOwnerIdAfterCursor(userId, filter.statuses(), cursorEnd,
+                    cursorId, CustomPageable.ofSize(missing))
+                    : archivedBookingRepository.findAllByBookerIdAfterCursor(userId, filter.statuses(), cursorEnd,
+                    cursorId, CustomPageable.ofSize(missing)));
+        }
+        return bookings.stream().map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
+    }
+
+    private List<BookingView> findBookingsAfterCursor(Long userId, boolean byOwner, BookingFilter filter,
+                                                      LocalDateTime cursorEnd, Long cursorId, Pageable pageable) {
+        if (filter.status != null) {
+            return byOwner
+                    ? bookingRepository.findAllByOwnerIdAndStatusAfterCursor(userId, filter.status, cursorEnd,
+                    cursorId, pageable)
+                    : bookingRepository.findAllByBookerIdAndStatusAfterCursor(userId, filter.status, cursorEnd,
+                    cursorId, pageable);
+        }
+        return byOwner
+                ? bookingRepository.findAllByOwnerIdAfterCursor(userId, filter.startAfter, filter.startBefore,
+                filter.endAfter, filter.endBefore, cursorEnd, cursorId, pageable)
+                : bookingRepository.findAllByBookerIdAfterCursor(userId, filter.startAfter, filter.startBefore,
+                filter.endAfter, filter.endBefore, cursorEnd, cursorId, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBookings(Long userId, boolean byOwner, Consumer<BookingDtoOutput> consumer) {
+        try (Stream<BookingView> bookings = byOwner
+                ? bookingRepository.streamAllByOwnerId(userId)
+                : bookingRepository.streamAllByBookerId(userId)) {
+            bookings.map(BookingMapper::toBookingDtoOutput).forEach(consumer);
+        }
+        try (Stream<BookingView> bookings = byOwner
+                ? archivedBookingRepository.streamAllByOwnerId(userId)
+                : archivedBookingRepository.streamAllByBookerId(userId)) {
+            bookings.map(BookingMapper::toBookingDtoOutput).forEach(consumer);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class BookingFilter {
+        private final Status status;
+        private final LocalDateTime startAfter;
+        private final LocalDateTime startBefore;
+        private final LocalDateTime endAfter;
+        private final LocalDateTime endBefore;
+
+        private static BookingFilter of(State state, LocalDateTime now) {
+            switch (state) {
+                case WAITING:
+                    return new BookingFilter(Status.WAITING, MIN_TIME, MAX_TIME, MIN_TIME, MAX_TIME);
+                case REJECTED:
+                    return new BookingFilter(Status.REJECTED, MIN_TIME, MAX_TIME, MIN_TIME, MAX_TIME);
+                case PAST:
+                    return new BookingFilter(null, MIN_TIME, MAX_TIME, MIN_TIME, now);
+                case CURRENT:
+                    return new BookingFilter(null, MIN_TIME, now, now, MAX_TIME);
+                case FUTURE:
+                    return new BookingFilter(null, now, MAX_TIME, MIN_TIME, MAX_TIME);
+                default:
+                    return new BookingFilter(null, MIN_TIME, MAX_TIME, MIN_TIME, MAX_TIME);
+            }
+        }
+
+        private Collection<Status> statuses() {
+            return status == null ? List.of(Status.values()) : List.of(status);
+        }
+
+        private boolean includesArchive() {
+            return startAfter.equals(MIN_TIME) && endAfter.equals(MIN_TIME);
         }
     }
-}
\ No newline at end of file
+}
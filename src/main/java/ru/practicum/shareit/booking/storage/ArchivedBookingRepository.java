@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Status;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    String VIEW_SELECT = "select b.id as id, b.start as startTime, b.end as endTime, b.status as status," +
+            " i.id as itemId, i.name as itemName, i.description as itemDescription, i.available as itemAvailable," +
+            " r.id as itemRequestId, u.id as bookerId, u.name as bookerName, u.email as bookerEmail" +
+            " from ArchivedBooking b join b.item i left join i.request r join b.booker u";
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_time, end_time, item_id, booker_id, owner_id, status)" +
+            " select id, start_time, end_time, item_id, booker_id, owner_id, status from bookings where id in :ids",
+            nativeQuery = true)
+    int archiveAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId and b.status in :statuses order by b.end desc, b.id desc")
+    List<BookingView> findAllByBookerId(@Param("bookerId") Long bookerId,
+                                        @Param("statuses") Collection<Status> statuses,
+                                        Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId and b.status in :statuses order by b.end desc, b.id desc")
+    List<BookingView> findAllByOwnerId(@Param("ownerId") Long ownerId,
+                                       @Param("statuses") Collection<Status> statuses,
+                                       Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId and b.status in :statuses" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByBookerIdAfterCursor(@Param("bookerId") Long bookerId,
+                                                   @Param("statuses") Collection<Status> statuses,
+                                                   @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId and b.status in :statuses" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByOwnerIdAfterCursor(@Param("ownerId") Long ownerId,
+                                                  @Param("statuses") Collection<Status> statuses,
+                                                  @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                  @Param("cursorId") Long cursorId,
+                                                  Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDtoItem(b.id, b.start, b.end, b.item.id, b.booker.id," +
+            " b.status) from ArchivedBooking b where b.item.id in :itemIds and b.status <> :excluded and" +
+            " b.start = (select max(l.start) from ArchivedBooking l where l.item.id = b.item.id" +
+            " and l.status <> :excluded)")
+    List<BookingDtoItem> findLastByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                           @Param("excluded") Status excluded);
+
+    @Query("select case when count(b) > 0 then true else false end from ArchivedBooking b" +
+            " where b.booker.id = :bookerId and b.item.id = :itemId and b.status = :status and b.end < :endTime")
+    boolean existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(@Param("bookerId") Long bookerId,
+                                                                @Param("itemId") Long itemId,
+                                                                @Param("status") Status status,
+                                                                @Param("endTime") LocalDateTime endTime);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId order by b.end desc, b.id desc")
+    Stream<BookingView> streamAllByBookerId(@Param("bookerId") Long bookerId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId order by b.end desc, b.id desc")
+    Stream<BookingView> streamAllByOwnerId(@Param("ownerId") Long ownerId);
+}
@@ -1,33 +1,207 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.hibernate.LockOptions;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String VIEW_SELECT = "select b.id as id, b.start as startTime, b.end as endTime, b.status as status," +
+            " i.id as itemId, i.name as itemName, i.description as itemDescription, i.available as itemAvailable," +
+            " r.id as itemRequestId, u.id as bookerId, u.name as bookerName, u.email as bookerEmail" +
+            " from Booking b join b.item i left join i.request r join b.booker u";
+
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
+
+    @Query(VIEW_SELECT +
+            " where b.id = :id and b.ownerId = :ownerId")
+    Optional<BookingView> findViewByIdAndOwnerId(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status" +
+            " where b.id = :id and b.ownerId = :ownerId and b.status = :expected")
+    int updateStatus(@Param("id") Long id,
+                     @Param("ownerId") Long ownerId,
+                     @Param("expected") Status expected,
+                     @Param("status") Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status" +
+            " where b.id in :ids and b.ownerId = :ownerId and b.status = :expected")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("ownerId") Long ownerId,
+                       @Param("expected") Status expected,
+                       @Param("status") Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status where b.id in :ids and b.status = :expected")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("expected") Status expected,
+                       @Param("status") Status status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select b.id as id, b.item.id as itemId, b.start as startTime, b.end as endTime, b.status as status" +
+            " from Booking b" +
+            " where b.status = :status and b.start < :startBefore order by b.start")
+    List<BookingStatusView> findAllForUpdateByStatusAndStartBefore(@Param("status") Status status,
+                                                                   @Param("startBefore") LocalDateTime startBefore,
+                                                                   Pageable pageable);
+
+    @Query("select b.id from Booking b where b.end < :endBefore order by b.end")
+    List<Long> findIdsByEndBefore(@Param("endBefore") LocalDateTime endBefore, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id as id, b.item.id as itemId, b.start as startTime, b.end as endTime, b.status as status" +
+            " from Booking b" +
+            " where b.id in :ids and b.ownerId = :ownerId")
+    List<BookingStatusView> findAllForUpdateByIdInAndOwnerId(@Param("ids") Collection<Long> ids,
+                                                             @Param("ownerId") Long ownerId);
+
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId" +
+            " and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByBookerIdAfterCursor(@Param("bookerId") Long bookerId,
+                                                   @Param("startAfter") LocalDateTime startAfter,
+                                                   @Param("startBefore") LocalDateTime startBefore,
+                                                   @Param("endAfter") LocalDateTime endAfter,
+                                                   @Param("endBefore") LocalDateTime endBefore,
+                                                   @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId and b.status = :status" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByBookerIdAndStatusAfterCursor(@Param("bookerId") Long bookerId,
+                                                            @Param("status") Status status,
+                                                            @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                            @Param("cursorId") Long cursorId,
+                                                            Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId" +
+            " and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByOwnerIdAfterCursor(@Param("ownerId") Long ownerId,
+                                                  @Param("startAfter") LocalDateTime startAfter,
+                                                  @Param("startBefore") LocalDateTime startBefore,
+                                                  @Param("endAfter") LocalDateTime endAfter,
+                                                  @Param("endBefore") LocalDateTime endBefore,
+                                                  @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                  @Param("cursorId") Long cursorId,
+                                                  Pageable pageable);
+
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId and b.status = :status" +
+            " and b.end <= :cursorEnd and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))" +
+            " order by b.end desc, b.id desc")
+    List<BookingView> findAllByOwnerIdAndStatusAfterCursor(@Param("ownerId") Long ownerId,
+                                                           @Param("status") Status status,
+                                                           @Param("cursorEnd") LocalDateTime cursorEnd,
+                                                           @Param("cursorId") Long cursorId,
+                                                           Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDtoItem(b.id, b.start, b.end, b.item.id, b.booker.id," +
+            " b.status) from Booking b where b.item.id in :itemIds and b.status <> :excluded and (" +
+            " b.start = (select max(l.start) from Booking l where l.item.id = b.item.id and l.status <> :excluded" +
+            " and l.start < :now) or" +
+            " b.start = (select min(n.start) from Booking n where n.item.id = b.item.id and n.status <> :excluded" +
+            " and n.start > :now))")
+    List<BookingDtoItem> findLastAndNextByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("now") LocalDateTime now,
+                                                  @Param("excluded") Status excluded);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    List<Booking> findAllByItem_IdAndStatusInAndEndAfter(Long itemId, Collection<Status> statuses, LocalDateTime end);
 
-    Booking getFirstByItem_IdOrderByStartAsc(Long itemId);
+    @Query("select case when count(b) > 0 then true else false end from Booking b" +
+            " where b.booker.id = :bookerId and b.item.id = :itemId and b.status = :status and b.end < :endTime")
+    boolean existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(@Param("bookerId") Long bookerId,
+                                                                @Param("itemId") Long itemId,
+                                                                @Param("status") Status status,
+                                                                @Param("endTime") LocalDateTime endTime);
 
-    Booking getFirstByItem_IdOrderByEndDesc(Long itemId);
+    @Query(value = VIEW_SELECT +
+            " where b.booker.id = :bookerId" +
+            " and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore" +
+            " order by b.end desc, b.id desc",
+            countQuery = "select count(b) from Booking b where b.booker.id = :bookerId" +
+                    " and b.start > :startAfter and b.start < :startBefore" +
+                    " and b.end > :endAfter and b.end < :endBefore")
+    Page<BookingView> findAllByBookerId(@Param("bookerId") Long bookerId,
+                                        @Param("startAfter") LocalDateTime startAfter,
+                                        @Param("startBefore") LocalDateTime startBefore,
+                                        @Param("endAfter") LocalDateTime endAfter,
+                                        @Param("endBefore") LocalDateTime endBefore,
+                                        Pageable pageable);
 
-    boolean existsAllByBooker_IdAndEndBefore(Long bookerId, LocalDateTime endTime);
+    @Query(value = VIEW_SELECT +
+            " where b.booker.id = :bookerId and b.status = :status order by b.end desc, b.id desc",
+            countQuery = "select count(b) from Booking b where b.booker.id = :bookerId and b.status = :status")
+    Page<BookingView> findAllByBookerIdAndStatus(@Param("bookerId") Long bookerId,
+                                                 @Param("status") Status status,
+                                                 Pageable pageable);
 
-    Page<Booking> findAllByBooker_IdOrderByEndDesc(Long userId, Pageable pageable);
+    @Query(value = VIEW_SELECT +
+            " where b.ownerId = :ownerId" +
+            " and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore" +
+            " order by b.end desc, b.id desc",
+            countQuery = "select count(b) from Booking b where b.ownerId = :ownerId" +
+                    " and b.start > :startAfter and b.start < :startBefore" +
+                    " and b.end > :endAfter and b.end < :endBefore")
+    Page<BookingView> findAllByOwnerId(@Param("ownerId") Long ownerId,
+                                       @Param("startAfter") LocalDateTime startAfter,
+                                       @Param("startBefore") LocalDateTime startBefore,
+                                       @Param("endAfter") LocalDateTime endAfter,
+                                       @Param("endBefore") LocalDateTime endBefore,
+                                       Pageable pageable);
 
-    Page<Booking> findAllByBooker_IdAndStatusOrderByEndDesc(Long userId, Status status, Pageable pageable);
+    @Query(value = VIEW_SELECT +
+            " where b.ownerId = :ownerId and b.status = :status order by b.end desc, b.id desc",
+            countQuery = "select count(b) from Booking b where b.ownerId = :ownerId and b.status = :status")
+    Page<BookingView> findAllByOwnerIdAndStatus(@Param("ownerId") Long ownerId,
+                                                @Param("status") Status status,
+                                                Pageable pageable);
 
-    @Query("select b from Booking b join Item i on i.id = b.item.id" +
-            " where i.owner.id = :ownerId order by b.end desc ")
-    Page<Booking> findAllByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW_SELECT +
+            " where b.booker.id = :bookerId order by b.end desc, b.id desc")
+    Stream<BookingView> streamAllByBookerId(@Param("bookerId") Long bookerId);
 
-    @Query("select b from Booking b join Item i on i.id = b.item.id" +
-            " where i.owner.id = :ownerId and b.status = :status order by b.end desc ")
-    List<Booking> findAllByOwnerIdAndStatus(@Param("ownerId") Long ownerId, @Param("status") Status status, Pageable pageable);
-}
\ No newline at end of file
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW_SELECT +
+            " where b.ownerId = :ownerId order by b.end desc, b.id desc")
+    Stream<BookingView> streamAllByOwnerId(@Param("ownerId") Long ownerId);
+}
@@ -2,18 +2,25 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.Create;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.Caller;
+import ru.practicum.shareit.util.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -23,10 +30,10 @@ public class ItemController {
     private final ItemService itemService;
 
     @PostMapping
-    public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
+    public ItemDto createItem(Caller owner,
                               @RequestBody @Validated({Create.class}) ItemDto itemDto) {
-        log.info("пользователь под id: " + ownerId + " создал вещь: " + itemDto);
-        return itemService.createItem(itemDto, ownerId);
+        log.info("пользователь под id: " + owner.getId() + " создал вещь: " + itemDto);
+        return itemService.createItem(itemDto, owner.getId());
     }
 
     @GetMapping("{id}")
@@ -37,11 +44,27 @@ public class ItemController {
     }
 
     @GetMapping
-    public Collection<ItemDto> getUserItems(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
+    public Collection<ItemDto> getUserItems(Caller owner,
                                             @PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
-                                            @Positive @RequestParam(name = "size", required = false) Integer size) {
-        log.info("пользователь под id: " + ownerId + " получил список своих вещей");
-        return itemService.getUserItems(ownerId, from, size);
+                                            @Positive @RequestParam(name = "size", required = false) Integer size,
+                                            @RequestParam(name = "cursor", required = false) String cursor,
+                                            HttpServletResponse response) {
+        log.info("пользователь под id: " + owner.getId() + " получил список своих вещей");
+        Collection<ItemDto> items = cursor == null
+                ? itemService.getUserItems(owner.getId(), from, size)
+                : itemService.getUserItemsAfterCursor(owner.getId(), cursor, size);
+        items.stream().reduce((first, second) -> second).ifPresent(last ->
+                response.setHeader(Cursor.HEADER, Cursor.of(last.getId()).encode()));
+        return items;
+    }
+
+    @GetMapping("{id}/availability")
+    public Collection<FreeSlotDto> getAvailability(
+            @PathVariable Long id,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("получение свободных интервалов вещи под id: " + id + " с " + from + " по " + to);
+        return itemService.getAvailability(id, from, to);
     }
 
     @PatchMapping("{id}")
@@ -59,12 +82,19 @@ public class ItemController {
         return itemService.searchItems(keyword, from, size);
     }
 
+    @GetMapping("/suggest")
+    public List<String> suggestItemNames(@RequestParam(name = "prefix", defaultValue = "") String prefix,
+                                         @Positive @RequestParam(name = "size", required = false) Integer size) {
+        log.info("подсказки названий вещей по префиксу: " + prefix);
+        return itemService.suggestItemNames(prefix, size);
+    }
+
     @PostMapping("{itemId}/comment")
-    public CommentDto createComment(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+    public CommentDto createComment(Caller user,
                                     @Valid @RequestBody CommentDto commentDto,
                                     @PathVariable @NotNull Long itemId) {
-        log.info("пользователь под id: " + userId + " оставил комментарий: " + commentDto +
+        log.info("пользователь под id: " + user.getId() + " оставил комментарий: " + commentDto +
                 " для вещи под id " + itemId);
-        return itemService.createComment(commentDto, itemId, userId);
+        return itemService.createComment(commentDto, itemId, user.getId());
     }
 }
\ No newline at end of file
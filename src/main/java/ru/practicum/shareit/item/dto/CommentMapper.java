@@ -14,6 +14,15 @@ public class CommentMapper {
                 .build();
     }
 
+    public static CommentDto toCommentDto(CommentView comment) {
+        return CommentDto.builder()
+                .id(comment.getId())
+                .authorName(comment.getAuthorName())
+                .text(comment.getText())
+                .created(comment.getCreated())
+                .build();
+    }
+
     public static Comment fromCommentDto(CommentDto commentDto, User author, Item item) {
         return Comment.builder()
                 .id(commentDto.getId())
@@ -23,6 +23,16 @@ public class ItemMapper {
         }
     }
 
+    public static ItemDto toItemDto(ItemView item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
     public static Item fromItemDto(ItemDto itemDto) {
         return Item.builder()
                 .id(itemDto.getId())
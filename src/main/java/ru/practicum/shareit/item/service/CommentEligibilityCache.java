@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class CommentEligibilityCache {
+    private final Map<List<Long>, Boolean> completed;
+
+    public CommentEligibilityCache(@Value("${shareit.item.comment-eligibility-cache-size:10000}") int maxSize) {
+        completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Long>, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized boolean contains(Long bookerId, Long itemId) {
+        return completed.get(List.of(bookerId, itemId)) != null;
+    }
+
+    public synchronized void add(Long bookerId, Long itemId) {
+        completed.put(List.of(bookerId, itemId), Boolean.TRUE);
+    }
+}
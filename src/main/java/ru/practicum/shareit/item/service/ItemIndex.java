@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.util.CustomPageable;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+abstract class ItemIndex {
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ItemRepository itemRepository;
+    private final int batchSize;
+    private final Set<Long> updatedDuringBuild = new HashSet<>();
+    private boolean building;
+
+    protected ItemIndex(ItemRepository itemRepository, int batchSize) {
+        this.itemRepository = itemRepository;
+        this.batchSize = batchSize;
+    }
+
+    protected boolean isEnabled() {
+        return true;
+    }
+
+    protected abstract void replace(Long id, String name, String description, boolean available);
+
+    protected int load() {
+        setBuilding(true);
+        long cursorId = 0;
+        int total = 0;
+        List<ItemView> batch;
+        try {
+            do {
+                batch = itemRepository.findAllAvailableAfterCursor(cursorId, CustomPageable.of(0, batchSize));
+                for (ItemView item : batch) {
+                    loadItem(item);
+                    cursorId = item.getId();
+                }
+                total += batch.size();
+            } while (batch.size() == batchSize);
+        } finally {
+            setBuilding(false);
+        }
+        return total;
+    }
+
+    public void indexAfterCommit(Item item) {
+        if (!isEnabled()) {
+            return;
+        }
+        Long id = item.getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, name, description, available);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, name, description, available);
+            }
+        });
+    }
+
+    void put(Long id, String name, String description, boolean available) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                updatedDuringBuild.add(id);
+            }
+            replace(id, name, description, available);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadItem(ItemView item) {
+        lock.writeLock().lock();
+        try {
+            if (!updatedDuringBuild.contains(item.getId())) {
+                replace(item.getId(), item.getName(), item.getDescription(), true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setBuilding(boolean building) {
+        lock.writeLock().lock();
+        try {
+            this.building = building;
+            updatedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
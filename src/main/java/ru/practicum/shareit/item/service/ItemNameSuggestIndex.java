@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+@Slf4j
+@Component
+public class ItemNameSuggestIndex extends ItemIndex {
+    private final NavigableMap<String, NavigableMap<Long, String>> names = new TreeMap<>();
+    private final Map<Long, String> keysById = new HashMap<>();
+
+    public ItemNameSuggestIndex(ItemRepository itemRepository,
+                                @Value("${shareit.item.search-index.batch-size:1000}") int batchSize) {
+        super(itemRepository, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        int total = load();
+        log.info("Индекс подсказок по названиям вещей построен, проиндексировано {} вещей", total);
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        if (prefix.isBlank()) {
+            return result;
+        }
+        String from = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            for (NavigableMap<Long, String> sameName : names.subMap(from, true, from + Character.MAX_VALUE, false)
+                    .values()) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(sameName.firstEntry().getValue());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    protected void replace(Long id, String name, String description, boolean available) {
+        String previous = keysById.remove(id);
+        if (previous != null) {
+            NavigableMap<Long, String> sameName = names.get(previous);
+            sameName.remove(id);
+            if (sameName.isEmpty()) {
+                names.remove(previous);
+            }
+        }
+        if (available && name != null && !name.isBlank()) {
+            String key = normalize(name);
+            names.computeIfAbsent(key, k -> new TreeMap<>()).put(id, name.trim());
+            keysById.put(id, key);
+        }
+    }
+
+    private String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
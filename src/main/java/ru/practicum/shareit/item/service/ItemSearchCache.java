@@ -0,0 +1,172 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.StatsSource;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ItemSearchCache implements StatsSource {
+    private static final String TOKEN_DELIMITER = "[^\\p{L}\\p{N}]+";
+    private final Map<List<Object>, CachedResult> results;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long generation;
+
+    public ItemSearchCache(@Value("${shareit.item.search-cache.max-size:1000}") int maxSize,
+                           @Value("${shareit.item.search-cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+                if (size() > ItemSearchCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized Optional<List<ItemDto>> get(String keyword, long offset, int size) {
+        List<Object> key = key(keyword, offset, size);
+        CachedResult cached = results.get(key);
+        if (cached != null && cached.expiresAt < System.currentTimeMillis()) {
+            results.remove(key);
+            evictions.incrementAndGet();
+            cached = null;
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(new ArrayList<>(cached.items));
+    }
+
+    public synchronized void put(long generation, String keyword, long offset, int size, List<ItemDto> items) {
+        if (maxSize <= 0 || generation != this.generation) {
+            return;
+        }
+        results.put(key(keyword, offset, size), new CachedResult(normalize(keyword), new ArrayList<>(items),
+                System.currentTimeMillis() + ttlMillis));
+    }
+
+    public String searchableText(Item item) {
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return null;
+        }
+        return normalize(item.getName() + " " + item.getDescription());
+    }
+
+    public void invalidateAfterCommit(String before, String after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(before, after);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(before, after);
+            }
+        });
+    }
+
+    synchronized void invalidate(String before, String after) {
+        generation++;
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (iterator.hasNext()) {
+            CachedResult cached = iterator.next();
+            if (matches(cached.keyword, before) || matches(cached.keyword, after)) {
+                iterator.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String getStats() {
+        return "кэш поиска вещей: попаданий " + getHits() + ", промахов " + getMisses() +
+                ", вытеснений " + getEvictions() + ", сбросов " + getInvalidations();
+    }
+
+    private boolean matches(String keyword, String text) {
+        if (text == null) {
+            return false;
+        }
+        if (text.contains(keyword)) {
+            return true;
+        }
+        for (String token : keyword.split(TOKEN_DELIMITER)) {
+            if (!token.isEmpty() && !text.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Object> key(String keyword, long offset, int size) {
+        return List.of(normalize(keyword), offset, size);
+    }
+
+    private String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static class CachedResult {
+        private final String keyword;
+        private final List<ItemDto> items;
+        private final long expiresAt;
+
+        private CachedResult(String keyword, List<ItemDto> items, long expiresAt) {
+            this.keyword = keyword;
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Component
+public class ItemSearchIndex extends ItemIndex {
+    private static final String INDEX_SEARCH = "index";
+    private static final int GRAM_LENGTH = 3;
+    private final boolean enabled;
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, IndexedItem> indexed = new HashMap<>();
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.item.search-mode:like}") String searchMode,
+                           @Value("${shareit.item.search-index.batch-size:1000}") int batchSize) {
+        super(itemRepository, batchSize);
+        this.enabled = INDEX_SEARCH.equals(searchMode);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        int total = load();
+        ready = true;
+        log.info("Поисковый индекс вещей построен, проиндексировано {} вещей", total);
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Long> search(String keyword, long offset, int limit) {
+        if (keyword == null || keyword.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String phrase = normalize(keyword);
+        List<Long> matchedByName = new ArrayList<>();
+        List<Long> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(phrase)) {
+                IndexedItem item = indexed.get(id);
+                if (item.name.contains(phrase)) {
+                    matchedByName.add(id);
+                } else if (item.description.contains(phrase)) {
+                    matched.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(matchedByName);
+        Collections.sort(matched);
+        List<Long> ranked = new ArrayList<>(matchedByName);
+        ranked.addAll(matched);
+        if (offset >= ranked.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(ranked.subList((int) offset, (int) Math.min(ranked.size(), offset + limit)));
+    }
+
+    @Override
+    protected void replace(Long id, String name, String description, boolean available) {
+        IndexedItem previous = indexed.remove(id);
+        if (previous != null) {
+            unlink(previous, id);
+        }
+        if (available) {
+            IndexedItem item = new IndexedItem(normalize(name), normalize(description));
+            link(item, id);
+            indexed.put(id, item);
+        }
+    }
+
+    int gramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> candidates(String phrase) {
+        Set<Long> result = null;
+        for (String gram : grams(phrase, Math.min(GRAM_LENGTH, phrase.length()))) {
+            Set<Long> itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return Set.of();
+            }
+            if (result == null) {
+                result = new HashSet<>(itemIds);
+            } else {
+                result.retainAll(itemIds);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void link(IndexedItem item, Long id) {
+        for (String gram : item.grams()) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unlink(IndexedItem item, Long id) {
+        for (String gram : item.grams()) {
+            Set<Long> itemIds = postings.get(gram);
+            if (itemIds != null && itemIds.remove(id) && itemIds.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text, int length) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            result.add(text.substring(i, i + length));
+        }
+        return result;
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static class IndexedItem {
+        private final String name;
+        private final String description;
+
+        private IndexedItem(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        private Set<String> grams() {
+            Set<String> result = new HashSet<>();
+            for (int length = 1; length <= GRAM_LENGTH; length++) {
+                result.addAll(ItemSearchIndex.grams(name, length));
+                result.addAll(ItemSearchIndex.grams(description, length));
+            }
+            return result;
+        }
+    }
+}
@@ -1,80 +1,163 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.dto.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.CommentView;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestFeedCache;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.Cursor;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 public class ItemService {
+    private static final String FULL_TEXT_SEARCH = "fulltext";
+    private static final int DEFAULT_SUGGEST_SIZE = 10;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final ItemRequestRepository requestRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final CommentEligibilityCache commentEligibilityCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggestIndex itemNameSuggestIndex;
+    private final ItemRequestFeedCache itemRequestFeedCache;
+    @Value("${shareit.item.comments-limit:0}")
+    private int commentsLimit;
+    @Value("${shareit.item.search-mode:like}")
+    private String searchMode;
 
     public ItemDto createItem(ItemDto itemDto, Long ownerId) {
         Item item = ItemMapper.fromItemDto(itemDto);
-        item.setOwner(userRepository.findById(ownerId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + ownerId + " не найден")));
+        item.setOwner(userRepository.getReferenceById(ownerId));
         if (itemDto.getRequestId() != null) {
             ItemRequest itemRequest = requestRepository.findById(itemDto.getRequestId())
                     .orElseThrow(() ->
                             new NotFoundException("Запрос с таким id: " + itemDto.getRequestId() + "не найден"));
             item.setRequest(itemRequest);
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        try {
+            item = itemRepository.save(item);
+        } catch (DataIntegrityViolationException e) {
+            throw missingUser(ownerId, e);
+        }
+        itemSearchIndex.indexAfterCommit(item);
+        itemNameSuggestIndex.indexAfterCommit(item);
+        itemSearchCache.invalidateAfterCommit(null, itemSearchCache.searchableText(item));
+        if (item.getRequest() != null) {
+            itemRequestFeedCache.invalidateAfterCommit();
+        }
+        return ItemMapper.toItemDto(item);
+    }
+
+    private RuntimeException missingUser(Long userId, DataIntegrityViolationException e) {
+        if (userRepository.existsById(userId)) {
+            return e;
+        }
+        userExistenceCache.remove(userId);
+        return new NotFoundException("Пользователь с id " + userId + " не найден");
     }
 
     public ItemDto getItemByOwner(Long itemId, Long ownerId) {
         Item item = itemRepository.findById(itemId).orElseThrow(() ->
                 new NotFoundException("Предмет с id " + itemId + " не найден"));
         ItemDto itemDto = ItemMapper.toItemDto(item);
-        setComments(itemDto);
+        setComments(List.of(itemDto));
         if (item.getOwner().getId().equals(ownerId)) {
-            setBooking(itemDto, itemId);
+            setBookings(List.of(itemDto));
         }
         return itemDto;
     }
 
-    private void setComments(ItemDto itemDto) {
-        itemDto.setComments(commentRepository.findByItem_IdOrderByCreatedDesc(itemDto.getId()).stream()
-                .map(CommentMapper::toCommentDto).collect(Collectors.toSet()));
+    private void setComments(Collection<ItemDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<CommentDto>> commentsByItem = new HashMap<>();
+        Set<Long> itemIds = items.stream().map(ItemDto::getId).collect(Collectors.toSet());
+        if (commentsLimit > 0) {
+            for (CommentView comment : commentRepository.findLatestByItemIds(itemIds, commentsLimit)) {
+                commentsByItem.computeIfAbsent(comment.getItemId(), id -> new HashSet<>())
+                        .add(CommentMapper.toCommentDto(comment));
+            }
+        } else {
+            for (Comment comment : commentRepository.findAllByItemIds(itemIds)) {
+                commentsByItem.computeIfAbsent(comment.getItem().getId(), id -> new HashSet<>())
+                        .add(CommentMapper.toCommentDto(comment));
+            }
+        }
+        for (ItemDto itemDto : items) {
+            itemDto.setComments(commentsByItem.getOrDefault(itemDto.getId(), new HashSet<>()));
+        }
     }
 
-    private void setBooking(ItemDto itemDto, Long itemId) {
-        Booking last = bookingRepository.getFirstByItem_IdOrderByStartAsc(itemId);
-        if (last != null) {
-            itemDto.setLastBooking(BookingMapper.toBookingDtoItem(last));
+    private void setBookings(Collection<ItemDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Long, ItemDto> itemsById = items.stream().collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        for (BookingDtoItem booking : bookingRepository.findLastAndNextByItemIds(itemsById.keySet(), now,
+                Status.REJECTED)) {
+            ItemDto itemDto = itemsById.get(booking.getItemId());
+            if (booking.getStart().isBefore(now)) {
+                if (itemDto.getLastBooking() == null) {
+                    itemDto.setLastBooking(booking);
+                }
+            } else if (itemDto.getNextBooking() == null) {
+                itemDto.setNextBooking(booking);
+            }
         }
-        Booking next = bookingRepository.getFirstByItem_IdOrderByEndDesc(itemId);
-        if (next != null) {
-            itemDto.setNextBooking(BookingMapper.toBookingDtoItem(next));
+        Set<Long> withoutLast = items.stream().filter(itemDto -> itemDto.getLastBooking() == null)
+                .map(ItemDto::getId).collect(Collectors.toSet());
+        if (!withoutLast.isEmpty()) {
+            for (BookingDtoItem booking : archivedBookingRepository.findLastByItemIds(withoutLast, Status.REJECTED)) {
+                ItemDto itemDto = itemsById.get(booking.getItemId());
+                if (itemDto.getLastBooking() == null) {
+                    itemDto.setLastBooking(booking);
+                }
+            }
         }
     }
 
@@ -83,21 +166,24 @@ public class ItemService {
                 new NotFoundException("Предмет с id " + itemId + " не найден"));
     }
 
-    private User getUser(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден"));
-    }
-
+    @Transactional(readOnly = true)
     public Collection<ItemDto> getUserItems(Long userId, Integer from, Integer size) {
-        User user = getUser(userId);
         Pageable pageable = CustomPageable.of(from, size);
-        Collection<ItemDto> items = itemRepository.findAllByOwner(user, pageable).stream()
-                .filter((Item x) -> Objects.equals(userId, x.getOwner().getId())).sorted(Comparator.comparing(Item::getId))
+        Collection<ItemDto> items = itemRepository.findAllByOwnerId(userId, pageable).stream()
                 .map(ItemMapper::toItemDto).collect(Collectors.toList());
-        for (ItemDto itemDto : items) {
-            setComments(itemDto);
-            setBooking(itemDto, itemDto.getId());
-        }
+        setComments(items);
+        setBookings(items);
+        return items;
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<ItemDto> getUserItemsAfterCursor(Long userId, String cursor, Integer size) {
+        Cursor after = Cursor.decode(cursor);
+        Collection<ItemDto> items = itemRepository.findAllByOwnerIdAfterCursor(userId, after.getId(),
+                        CustomPageable.ofSize(size)).stream()
+                .map(ItemMapper::toItemDto).collect(Collectors.toList());
+        setComments(items);
+        setBookings(items);
         return items;
     }
 
@@ -106,6 +192,7 @@ public class ItemService {
         if (!Objects.equals(item.getOwner().getId(), ownerId)) {
             throw new NotFoundException("Пользователь с id " + ownerId + " не является владельцем вещи");
         }
+        String searchableBefore = itemSearchCache.searchableText(item);
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -115,25 +202,106 @@ public class ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        try {
+            item = itemRepository.save(item);
+        } catch (DataIntegrityViolationException e) {
+            throw missingUser(ownerId, e);
+        }
+        itemSearchIndex.indexAfterCommit(item);
+        itemNameSuggestIndex.indexAfterCommit(item);
+        itemSearchCache.invalidateAfterCommit(searchableBefore, itemSearchCache.searchableText(item));
+        if (item.getRequest() != null) {
+            itemRequestFeedCache.invalidateAfterCommit();
+        }
+        return ItemMapper.toItemDto(item);
     }
 
+    @Transactional(readOnly = true)
     public Collection<ItemDto> searchItems(String keyword, Integer from, Integer size) {
         if (keyword.isEmpty()) {
             return new ArrayList<>();
         }
         Pageable pageable = CustomPageable.of(from, size);
-        return itemRepository.searchItems(keyword, pageable).stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        Optional<List<ItemDto>> cached = itemSearchCache.get(keyword, pageable.getOffset(), pageable.getPageSize());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long generation = itemSearchCache.getGeneration();
+        List<ItemDto> result;
+        if (itemSearchIndex.isReady()) {
+            result = searchItemsInIndex(keyword, pageable);
+        } else {
+            List<ItemView> items = FULL_TEXT_SEARCH.equals(searchMode)
+                    ? itemRepository.searchItemsFullText(keyword, pageable)
+                    : itemRepository.searchItems(keyword, pageable);
+            result = items.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+        itemSearchCache.put(generation, keyword, pageable.getOffset(), pageable.getPageSize(), result);
+        return result;
     }
 
-    public CommentDto createComment(CommentDto commentDto, Long itemId, Long userId) {
-        if (!bookingRepository.existsAllByBooker_IdAndEndBefore(userId, LocalDateTime.now())) {
-            throw new BadRequestException("Пользователь не бронировал этот предмет");
+    public List<String> suggestItemNames(String prefix, Integer size) {
+        return itemNameSuggestIndex.suggest(prefix, size == null ? DEFAULT_SUGGEST_SIZE : size);
+    }
+
+    private List<ItemDto> searchItemsInIndex(String keyword, Pageable pageable) {
+        List<Long> ids = itemSearchIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ItemView> itemsById = itemRepository.findAllViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ItemView::getId, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    public Collection<FreeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Время начала периода должно быть раньше времени окончания");
         }
-        User author = getUser(userId);
         Item item = getItem(itemId);
-        Comment comment = CommentMapper.fromCommentDto(commentDto, author, item);
+        LocalDateTime cursor = from.isBefore(LocalDateTime.now()) ? LocalDateTime.now() : from;
+        List<FreeSlotDto> slots = new ArrayList<>();
+        if (!item.getAvailable() || !cursor.isBefore(to)) {
+            return slots;
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> busy : bookingIntervalIndex.getIntervals(itemId, cursor, to)
+                .entrySet()) {
+            if (busy.getKey().isAfter(cursor)) {
+                slots.add(FreeSlotDto.builder().start(cursor).end(busy.getKey()).build());
+            }
+            if (busy.getValue().isAfter(cursor)) {
+                cursor = busy.getValue();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            slots.add(FreeSlotDto.builder().start(cursor).end(to).build());
+        }
+        return slots;
+    }
+
+    @Transactional
+    public CommentDto createComment(CommentDto commentDto, Long itemId, Long userId) {
+        if (!commentEligibilityCache.contains(userId, itemId)) {
+            LocalDateTime now = LocalDateTime.now();
+            if (!bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(userId, itemId,
+                    Status.APPROVED, now) && !archivedBookingRepository
+                    .existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(userId, itemId, Status.APPROVED, now)) {
+                throw new BadRequestException("Пользователь не бронировал этот предмет");
+            }
+            commentEligibilityCache.add(userId, itemId);
+        }
+        Comment comment = CommentMapper.fromCommentDto(commentDto, userRepository.getReferenceById(userId),
+                itemRepository.getReferenceById(itemId));
         comment.setCreated(LocalDateTime.now());
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        try {
+            comment = commentRepository.save(comment);
+        } catch (DataIntegrityViolationException e) {
+            throw missingUser(userId, e);
+        }
+        return CommentMapper.toCommentDto(comment);
     }
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.model.Comment;
 
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    Set<Comment> findByItem_IdOrderByCreatedDesc(Long itemId);
+    @Query("select c from Comment c join fetch c.author where c.item.id in :itemIds order by c.created desc")
+    List<Comment> findAllByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query(value = "select c.id as \"id\", c.text as \"text\", u.name as \"authorName\", c.created as \"created\"," +
+            " c.item_id as \"itemId\" from (select cm.*, row_number() over (partition by cm.item_id" +
+            " order by cm.created desc, cm.id desc) as rn from comments cm where cm.item_id in :itemIds) c" +
+            " join users u on u.id = c.author_id where c.rn <= :limit order by c.created desc, c.id desc",
+            nativeQuery = true)
+    List<CommentView> findLatestByItemIds(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -1,18 +1,57 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    Page<Item> findAllByOwner(User owner, Pageable pageable);
+    @Query("select i from Item i join fetch i.owner left join fetch i.request r left join fetch r.requester" +
+            " where i.id in :ids")
+    List<Item> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i left join i.request r where i.owner.id = :ownerId order by i.id")
+    List<ItemView> findAllByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i left join i.request r where i.owner.id = :ownerId and i.id > :cursorId" +
+            " order by i.id")
+    List<ItemView> findAllByOwnerIdAfterCursor(@Param("ownerId") Long ownerId, @Param("cursorId") Long cursorId,
+                                               Pageable pageable);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i join i.request r where r.id in :requestIds")
+    List<ItemView> findAllByRequestIds(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i left join i.request r where i.id in :ids")
+    List<ItemView> findAllViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i left join i.request r where i.available = true and i.id > :cursorId" +
+            " order by i.id")
+    List<ItemView> findAllAvailableAfterCursor(@Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available," +
+            " r.id as requestId from Item i left join i.request r" +
+            " where i.available = true and (upper(i.name) like upper(concat('%', :keyword, '%'))" +
+            " or upper(i.description) like upper(concat('%', :keyword, '%')))" +
+            " order by case when upper(i.name) like upper(concat('%', :keyword, '%')) then 0 else 1 end, i.id")
+    List<ItemView> searchItems(@Param("keyword") String keyword, Pageable pageable);
 
-    @Query("select i from Item i where (upper(i.name) like upper(concat('%',:keyword,'%') ) or " +
-            "upper(i.description) like upper(concat('%',:keyword,'%') ) and i.available = true )")
-    Page<Item> searchItems(@Param("keyword") String keyword, Pageable pageable);
+    @Query(value = "select i.id as \"id\", i.name as \"name\", i.description as \"description\"," +
+            " i.available as \"available\", i.request_id as \"requestId\"" +
+            " from items i, plainto_tsquery('simple', :keyword) q" +
+            " where i.available and (i.search_vector @@ q or i.name ilike concat('%', :keyword, '%')" +
+            " or i.description ilike concat('%', :keyword, '%'))" +
+            " order by ts_rank(i.search_vector, q) desc, similarity(i.name, :keyword) desc, i.id",
+            nativeQuery = true)
+    List<ItemView> searchItemsFullText(@Param("keyword") String keyword, Pageable pageable);
 }
\ No newline at end of file
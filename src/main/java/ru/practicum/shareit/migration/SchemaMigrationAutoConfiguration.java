@@ -0,0 +1,24 @@
+package ru.practicum.shareit.migration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.sql.init.dependency.DatabaseInitializationDependencyConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@AutoConfiguration(after = DataSourceAutoConfiguration.class)
+@ConditionalOnBean(DataSource.class)
+@Import(DatabaseInitializationDependencyConfigurer.class)
+public class SchemaMigrationAutoConfiguration {
+
+    @Bean
+    public SchemaMigrator schemaMigrator(DataSource dataSource,
+                                         @Value("${shareit.migration.locations:db/migration}") String[] locations) {
+        return new SchemaMigrator(dataSource, List.of(locations));
+    }
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileCopyUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+@Slf4j
+public class SchemaMigrator implements InitializingBean {
+    private static final String DOLLAR_QUOTE = "$$";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private final DataSource dataSource;
+    private final List<String> locations;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lockTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaMigrator(DataSource dataSource, List<String> locations) {
+        this.dataSource = dataSource;
+        this.locations = locations;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.lockTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    public int migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version" +
+                " (version INT NOT NULL, description VARCHAR(255) NOT NULL, checksum BIGINT NOT NULL," +
+                " installed_on TIMESTAMP default current_timestamp," +
+                " CONSTRAINT pk_schema_version PRIMARY KEY (version))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version_lock" +
+                " (id INT NOT NULL, CONSTRAINT pk_schema_version_lock PRIMARY KEY (id))");
+        try {
+            jdbcTemplate.update("insert into schema_version_lock (id) select 1" +
+                    " where not exists (select 1 from schema_version_lock where id = 1)");
+        } catch (DuplicateKeyException e) {
+            log.debug("Строка блокировки миграций уже создана другим экземпляром");
+        }
+        NavigableMap<Integer, Resource> scripts = findScripts();
+        Integer count = lockTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("select id from schema_version_lock where id = 1 for update", Integer.class);
+            return migrate(scripts);
+        });
+        log.info("Схема базы данных актуальна, применено миграций: " + count);
+        return count == null ? 0 : count;
+    }
+
+    private int migrate(NavigableMap<Integer, Resource> scripts) {
+        Map<Integer, Long> applied = new HashMap<>();
+        for (Map.Entry<Integer, Long> version : jdbcTemplate.query("select version, checksum from schema_version",
+                (rs, rowNum) -> Map.entry(rs.getInt("version"), rs.getLong("checksum")))) {
+            applied.put(version.getKey(), version.getValue());
+        }
+        int count = 0;
+        for (Map.Entry<Integer, Resource> script : scripts.entrySet()) {
+            String sql = read(script.getValue());
+            long checksum = checksum(sql);
+            Long appliedChecksum = applied.get(script.getKey());
+            if (appliedChecksum == null) {
+                apply(script.getKey(), script.getValue(), separator(sql), checksum);
+                count++;
+            } else if (appliedChecksum != checksum) {
+                throw new IllegalStateException("Миграция " + script.getValue().getFilename() +
+                        " изменена после применения: контрольная сумма " + checksum + ", в базе " + appliedChecksum);
+            }
+        }
+        return count;
+    }
+
+    private void apply(Integer version, Resource script, String separator, long checksum) {
+        String description = description(script);
+        transactionTemplate.executeWithoutResult(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(script, StandardCharsets.UTF_8), false,
+                        false, ScriptUtils.DEFAULT_COMMENT_PREFIX, separator,
+                        ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+                        ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+            jdbcTemplate.update("insert into schema_version (version, description, checksum) values (?, ?, ?)",
+                    version, description, checksum);
+        });
+        log.info("Применена миграция схемы V" + version + "__" + description);
+    }
+
+    private String read(Resource script) {
+        try {
+            return FileCopyUtils.copyToString(new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private String separator(String sql) {
+        return sql.contains(DOLLAR_QUOTE) ? ScriptUtils.EOF_STATEMENT_SEPARATOR
+                : ScriptUtils.DEFAULT_STATEMENT_SEPARATOR;
+    }
+
+    private NavigableMap<Integer, Resource> findScripts() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        NavigableMap<Integer, Resource> scripts = new TreeMap<>();
+        for (String location : locations) {
+            Resource[] resources;
+            try {
+                resources = resolver.getResources("classpath*:" + location + "/V*__*.sql");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (Resource resource : resources) {
+                Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                Resource duplicate = scripts.put(Integer.valueOf(matcher.group(1)), resource);
+                if (duplicate != null) {
+                    throw new IllegalStateException("Повторяющаяся версия миграции: " + resource.getFilename() +
+                            " и " + duplicate.getFilename());
+                }
+            }
+        }
+        return scripts;
+    }
+
+    private String description(Resource script) {
+        Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+        return matcher.matches() ? matcher.group(2) : script.getFilename();
+    }
+}
@@ -5,10 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.Caller;
+import ru.practicum.shareit.util.Cursor;
 import ru.practicum.shareit.util.CustomPageable;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.Collection;
@@ -21,30 +23,38 @@ public class ItemRequestController {
     private final ItemRequestService itemRequestService;
 
     @GetMapping("{requestId}")
-    public ItemRequestDto getItemRequestById(@RequestHeader("X-Sharer-User-Id") @NotNull Long requesterId,
+    public ItemRequestDto getItemRequestById(Caller requester,
                                              @PathVariable Long requestId) {
-        log.info("получение пользователем под id: " + requesterId + " запроса под id: " + requestId);
-        return itemRequestService.getItemRequest(requestId, requesterId);
+        log.info("получение пользователем под id: " + requester.getId() + " запроса под id: " + requestId);
+        return itemRequestService.getItemRequest(requestId, requester.getId());
     }
 
     @GetMapping
-    public Collection<ItemRequestDto> getByUser(@RequestHeader("X-Sharer-User-Id") @NotNull Long requesterId) {
-        log.info("получение списка запросов по пользователю под id: " + requesterId);
-        return itemRequestService.getByUser(requesterId);
+    public Collection<ItemRequestDto> getByUser(Caller requester) {
+        log.info("получение списка запросов по пользователю под id: " + requester.getId());
+        return itemRequestService.getByUser(requester.getId());
     }
 
     @GetMapping("all")
-    public Collection<ItemRequestDto> getAll(@RequestHeader("X-Sharer-User-Id") @NotNull Long requesterId,
+    public Collection<ItemRequestDto> getAll(Caller requester,
                                              @PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
-                                             @Positive @RequestParam(name = "size", required = false) Integer size) {
-        log.info("пользователь под id: " + requesterId + " получил список своих запросов");
-        return itemRequestService.getAllByUserId(requesterId, CustomPageable.of(from, size));
+                                             @Positive @RequestParam(name = "size", required = false) Integer size,
+                                             @RequestParam(name = "cursor", required = false) String cursor,
+                                             HttpServletResponse response) {
+        log.info("пользователь под id: " + requester.getId() + " получил список своих запросов");
+        Collection<ItemRequestDto> requests = cursor == null
+                ? itemRequestService.getAllByUserId(requester.getId(), CustomPageable.of(from, size))
+                : itemRequestService.getAllByUserIdAfterCursor(requester.getId(), cursor,
+                CustomPageable.ofSize(size));
+        requests.stream().reduce((first, second) -> second).ifPresent(last ->
+                response.setHeader(Cursor.HEADER, Cursor.of(last.getCreated(), last.getId()).encode()));
+        return requests;
     }
 
     @PostMapping
-    public ItemRequestDto createItemRequest(@RequestHeader("X-Sharer-User-Id") @NotNull Long requesterId,
+    public ItemRequestDto createItemRequest(Caller requester,
                                             @RequestBody @Valid ItemRequestDto itemRequestDto) {
-        log.info("пользователь под id: " + requesterId + " создал запрос на: " + itemRequestDto);
-        return itemRequestService.createItemRequest(itemRequestDto, requesterId);
+        log.info("пользователь под id: " + requester.getId() + " создал запрос на: " + itemRequestDto);
+        return itemRequestService.createItemRequest(itemRequestDto, requester.getId());
     }
 }
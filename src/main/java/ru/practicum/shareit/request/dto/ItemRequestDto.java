@@ -1,7 +1,6 @@
 package ru.practicum.shareit.request.dto;
 
 import lombok.*;
-import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
@@ -18,5 +17,5 @@ public class ItemRequestDto {
     @NotBlank
     private String description;
     private Long requesterId;
-    private List<ItemDto> items;
+    private List<RequestItemDto> items;
 }
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.request.dto;
+
+public interface ItemRequestFeedView extends ItemRequestView {
+    Long getRequesterId();
+}
@@ -1,30 +1,40 @@
 package ru.practicum.shareit.request.dto;
 
-import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class ItemRequestMapper {
 
     public static ItemRequestDto toItemRequestDto(ItemRequest itemRequest) {
-        if (itemRequest.getItems() != null) {
-            return ItemRequestDto.builder()
-                    .id(itemRequest.getId())
-                    .description(itemRequest.getDescription())
-                    .created(itemRequest.getCreated())
-                    .items(itemRequest.getItems().stream().map(ItemMapper::toItemDto).collect(Collectors.toList()))
-                    .build();
-        } else {
-            return ItemRequestDto.builder()
-                    .id(itemRequest.getId())
-                    .description(itemRequest.getDescription())
-                    .created(itemRequest.getCreated())
-                    .items(new ArrayList<>())
-                    .build();
-        }
+        return ItemRequestDto.builder()
+                .id(itemRequest.getId())
+                .description(itemRequest.getDescription())
+                .created(itemRequest.getCreated())
+                .items(new ArrayList<>())
+                .build();
+    }
+
+    public static ItemRequestDto toItemRequestDto(ItemRequestView itemRequest, List<RequestItemDto> items) {
+        return ItemRequestDto.builder()
+                .id(itemRequest.getId())
+                .description(itemRequest.getDescription())
+                .created(itemRequest.getCreated())
+                .items(items)
+                .build();
+    }
+
+    public static RequestItemDto toRequestItemDto(ItemView item) {
+        return RequestItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
     }
 
     public static ItemRequest fromItemRequestDto(ItemRequestDto itemRequestDto, User requester) {
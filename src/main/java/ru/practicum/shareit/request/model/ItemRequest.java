@@ -1,12 +1,12 @@
 package ru.practicum.shareit.request.model;
 
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Builder
@@ -25,8 +25,13 @@ public class ItemRequest {
     @ManyToOne
     @JoinColumn(name = "requester_id")
     private User requester;
-    @CreationTimestamp
     private LocalDateTime created;
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "request")
     private List<Item> items;
+
+    @PrePersist
+    private void onCreate() {
+        created = (created == null ? LocalDateTime.now() : created).truncatedTo(ChronoUnit.MICROS);
+    }
 }
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.request.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.util.StatsSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ItemRequestFeedCache implements StatsSource {
+    private final FeedEntry[] ring;
+    private final long ttlMillis;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private int head;
+    private int count;
+    private boolean complete;
+    private long expiresAt;
+    private long generation;
+
+    public ItemRequestFeedCache(@Value("${shareit.request.feed-cache.capacity:200}") int capacity,
+                                @Value("${shareit.request.feed-cache.ttl-ms:5000}") long ttlMillis) {
+        this.ring = new FeedEntry[Math.max(capacity, 0)];
+        this.ttlMillis = ttlMillis;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized boolean isStale() {
+        return ring.length > 0 && expiresAt < System.currentTimeMillis();
+    }
+
+    public synchronized Optional<List<ItemRequestDto>> get(Long requesterId, long offset, int size) {
+        if (ring.length == 0 || expiresAt < System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        List<ItemRequestDto> page = new ArrayList<>();
+        long skipped = 0;
+        for (int i = 0; i < count && page.size() < size; i++) {
+            FeedEntry entry = ring[Math.floorMod(head - i, ring.length)];
+            if (entry.requesterId.equals(requesterId)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(entry.request);
+        }
+        if (page.size() < size && !complete) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(page);
+    }
+
+    public synchronized void load(long generation, List<Long> requesterIds, List<ItemRequestDto> requests) {
+        if (ring.length == 0 || generation != this.generation) {
+            return;
+        }
+        Arrays.fill(ring, null);
+        head = 0;
+        count = 0;
+        complete = true;
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            push(new FeedEntry(requesterIds.get(i), requests.get(i)));
+        }
+        complete = requests.size() < ring.length;
+        expiresAt = System.currentTimeMillis() + ttlMillis;
+        reloads.incrementAndGet();
+    }
+
+    public void addAfterCommit(Long requesterId, ItemRequestDto request) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(requesterId, request);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(requesterId, request);
+            }
+        });
+    }
+
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    synchronized void add(Long requesterId, ItemRequestDto request) {
+        generation++;
+        if (ring.length > 0 && expiresAt > 0) {
+            push(new FeedEntry(requesterId, request));
+        }
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        expiresAt = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getReloads() {
+        return reloads.get();
+    }
+
+    @Override
+    public String getStats() {
+        return "лента запросов: попаданий " + getHits() + ", промахов " + getMisses() +
+                ", перезагрузок " + getReloads();
+    }
+
+    private void push(FeedEntry entry) {
+        if (count == ring.length) {
+            complete = false;
+        } else {
+            count++;
+        }
+        head = (head + 1) % ring.length;
+        ring[head] = entry;
+    }
+
+    private static class FeedEntry {
+        private final Long requesterId;
+        private final ItemRequestDto request;
+
+        private FeedEntry(Long requesterId, ItemRequestDto request) {
+            this.requesterId = requesterId;
+            this.request = request;
+        }
+    }
+}
@@ -1,50 +1,112 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestFeedView;
+import ru.practicum.shareit.request.dto.ItemRequestView;
+import ru.practicum.shareit.request.dto.RequestItemDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.Cursor;
+import ru.practicum.shareit.util.CustomPageable;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemRequestService {
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestFeedCache feedCache;
 
-    private User checkAndReturnUser(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id: " + userId + " не найден"));
+    public ItemRequestDto createItemRequest(ItemRequestDto itemRequestDto, Long requesterId) {
+        ItemRequest itemRequest = ItemRequestMapper.fromItemRequestDto(itemRequestDto,
+                userRepository.getReferenceById(requesterId));
+        itemRequest.setCreated(null);
+        try {
+            itemRequest = itemRequestRepository.save(itemRequest);
+        } catch (DataIntegrityViolationException e) {
+            throw missingUser(requesterId, e);
+        }
+        ItemRequestDto created = ItemRequestMapper.toItemRequestDto(itemRequest);
+        feedCache.addAfterCommit(requesterId, created);
+        return created;
     }
 
-    public ItemRequestDto createItemRequest(ItemRequestDto itemRequestDto, Long requesterId) {
-        ItemRequest itemRequest = ItemRequestMapper.fromItemRequestDto(itemRequestDto, checkAndReturnUser(requesterId));
-        return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
+    private RuntimeException missingUser(Long userId, DataIntegrityViolationException e) {
+        if (userRepository.existsById(userId)) {
+            return e;
+        }
+        userExistenceCache.remove(userId);
+        return new NotFoundException("Пользователь с id: " + userId + " не найден");
     }
 
+    @Transactional(readOnly = true)
     public ItemRequestDto getItemRequest(Long requestId, Long requesterId) {
-        checkAndReturnUser(requesterId);
-        return ItemRequestMapper.toItemRequestDto(itemRequestRepository.findById(requestId).orElseThrow(() ->
-                new NotFoundException("Запрос с id:" + requestId + " не найден")));
+        ItemRequestView request = itemRequestRepository.findViewById(requestId).orElseThrow(() ->
+                new NotFoundException("Запрос с id:" + requestId + " не найден"));
+        return toItemRequestDtos(List.of(request)).get(0);
     }
 
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDto> getByUser(Long userId) {
-        checkAndReturnUser(userId);
-        return itemRequestRepository.findAllByRequesterId(userId).stream().map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDtos(itemRequestRepository.findAllByRequesterId(userId));
     }
 
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDto> getAllByUserId(Long userId, Pageable pageable) {
-        checkAndReturnUser(userId);
-        return itemRequestRepository.findAllByRequesterIdIsNot(userId, pageable).stream()
-                .map(ItemRequestMapper::toItemRequestDto).collect(Collectors.toList());
+        Optional<List<ItemRequestDto>> cached = feedCache.get(userId, pageable.getOffset(), pageable.getPageSize());
+        if (cached.isEmpty() && feedCache.isStale()) {
+            reloadFeed();
+            cached = feedCache.get(userId, pageable.getOffset(), pageable.getPageSize());
+        }
+        return cached.orElseGet(() ->
+                toItemRequestDtos(itemRequestRepository.findAllByRequesterIdIsNot(userId, pageable)));
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<ItemRequestDto> getAllByUserIdAfterCursor(Long userId, String cursor, Pageable pageable) {
+        Cursor after = Cursor.decodeWithTime(cursor);
+        return toItemRequestDtos(itemRequestRepository.findAllByRequesterIdIsNotAfterCursor(userId, after.getTime(),
+                after.getId(), pageable));
+    }
+
+    private void reloadFeed() {
+        long generation = feedCache.getGeneration();
+        List<ItemRequestFeedView> newest = itemRequestRepository.findNewest(CustomPageable.of(0,
+                feedCache.getCapacity()));
+        feedCache.load(generation, newest.stream().map(ItemRequestFeedView::getRequesterId)
+                .collect(Collectors.toList()), toItemRequestDtos(newest));
+    }
+
+    private List<ItemRequestDto> toItemRequestDtos(List<? extends ItemRequestView> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<RequestItemDto>> itemsByRequest = itemRepository.findAllByRequestIds(requests.stream()
+                        .map(ItemRequestView::getId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.groupingBy(ItemView::getRequestId,
+                        Collectors.mapping(ItemRequestMapper::toRequestItemDto, Collectors.toList())));
+        return requests.stream()
+                .map(request -> ItemRequestMapper.toItemRequestDto(request,
+                        itemsByRequest.getOrDefault(request.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
     }
 }
@@ -1,15 +1,42 @@
 package ru.practicum.shareit.request.storage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestFeedView;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    List<ItemRequest> findAllByRequesterId(Long requesterId);
+    @Query("select r.id as id, r.description as description, r.created as created from ItemRequest r" +
+            " where r.id = :id")
+    Optional<ItemRequestView> findViewById(@Param("id") Long id);
 
-    Page<ItemRequest> findAllByRequesterIdIsNot(Long requesterId, Pageable pageable);
+    @Query("select r.id as id, r.description as description, r.created as created from ItemRequest r" +
+            " where r.requester.id = :requesterId")
+    List<ItemRequestView> findAllByRequesterId(@Param("requesterId") Long requesterId);
+
+    @Query("select r.id as id, r.description as description, r.created as created from ItemRequest r" +
+            " where r.requester.id <> :requesterId order by r.created desc, r.id desc")
+    List<ItemRequestView> findAllByRequesterIdIsNot(@Param("requesterId") Long requesterId, Pageable pageable);
+
+    @Query("select r.id as id, r.description as description, r.created as created, r.requester.id as requesterId" +
+            " from ItemRequest r order by r.created desc, r.id desc")
+    List<ItemRequestFeedView> findNewest(Pageable pageable);
+
+    @Query("select r.id as id, r.description as description, r.created as created from ItemRequest r" +
+            " where r.requester.id <> :requesterId" +
+            " and r.created <= :cursorCreated" +
+            " and (r.created < :cursorCreated or (r.created = :cursorCreated and r.id < :cursorId))" +
+            " order by r.created desc, r.id desc")
+    List<ItemRequestView> findAllByRequesterIdIsNotAfterCursor(@Param("requesterId") Long requesterId,
+                                                               @Param("cursorCreated") LocalDateTime cursorCreated,
+                                                               @Param("cursorId") Long cursorId,
+                                                               Pageable pageable);
 }
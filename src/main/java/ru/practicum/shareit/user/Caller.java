@@ -0,0 +1,15 @@
+package ru.practicum.shareit.user;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+@Getter
+@EqualsAndHashCode
+public class Caller {
+    public static final String HEADER = "X-Sharer-User-Id";
+    private final Long id;
+
+    public Caller(Long id) {
+        this.id = id;
+    }
+}
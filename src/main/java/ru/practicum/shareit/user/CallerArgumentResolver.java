@@ -0,0 +1,41 @@
+package ru.practicum.shareit.user;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.user.service.UserService;
+
+@Component
+@RequiredArgsConstructor
+public class CallerArgumentResolver implements HandlerMethodArgumentResolver {
+    private final UserService userService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return Caller.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Caller resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory)
+            throws MissingRequestHeaderException {
+        String header = webRequest.getHeader(Caller.HEADER);
+        if (header == null) {
+            throw new MissingRequestHeaderException(Caller.HEADER, parameter);
+        }
+        long id;
+        try {
+            id = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Некорректный id пользователя: " + header);
+        }
+        userService.checkUserExists(id);
+        return new Caller(id);
+    }
+}
@@ -1,13 +1,21 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.Create;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 
 @Slf4j
@@ -15,7 +23,9 @@ import java.util.Collection;
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
 public class UserController {
+    private static final String NDJSON = "application/x-ndjson";
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public UserDto createUser(@Validated({Create.class}) @RequestBody UserDto userDto) {
@@ -24,9 +34,24 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<UserDto> getAllUsers() {
+    public Collection<UserDto> getAllUsers(@PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
+                                           @Positive @RequestParam(name = "size", required = false) Integer size) {
         log.info("получение списка всех пользователей");
-        return userService.getAllUsers();
+        return userService.getAllUsers(from, size);
+    }
+
+    @GetMapping(path = "stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.info("потоковая выгрузка всех пользователей");
+        StreamingResponseBody body = out -> userService.streamAllUsers(user -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     @GetMapping("{id}")
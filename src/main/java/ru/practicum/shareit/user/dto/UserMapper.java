@@ -11,6 +11,14 @@ public class UserMapper {
                 .build();
     }
 
+    public static UserDto toUserDto(UserView user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .build();
+    }
+
     public static User fromUserDto(UserDto userDto) {
         return User.builder()
                 .id(userDto.getId())
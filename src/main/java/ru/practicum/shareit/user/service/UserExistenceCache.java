@@ -0,0 +1,56 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class UserExistenceCache {
+    private static final long EMPTY = 0;
+    private final AtomicLongArray slots;
+    private final AtomicLong removals = new AtomicLong();
+    private final int mask;
+
+    public UserExistenceCache(@Value("${shareit.user.existence-cache-size:4096}") int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size));
+        slots = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+    }
+
+    public boolean contains(long id) {
+        return id != EMPTY && slots.get(slot(id)) == id;
+    }
+
+    public void add(long id) {
+        if (id != EMPTY) {
+            slots.set(slot(id), id);
+        }
+    }
+
+    public long version() {
+        return removals.get();
+    }
+
+    public void add(long id, long version) {
+        if (id == EMPTY) {
+            return;
+        }
+        int slot = slot(id);
+        slots.set(slot, id);
+        if (removals.get() != version) {
+            slots.compareAndSet(slot, id, EMPTY);
+        }
+    }
+
+    public void remove(long id) {
+        removals.incrementAndGet();
+        slots.compareAndSet(slot(id), id, EMPTY);
+    }
+
+    private int slot(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
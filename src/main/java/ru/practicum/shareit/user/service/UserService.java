@@ -2,24 +2,38 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.dto.UserView;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.CustomPageable;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
 
-    public Collection<UserDto> getAllUsers() {
-        return userRepository.findAll().stream().map(UserMapper::toUserDto).collect(Collectors.toList());
+    public Collection<UserDto> getAllUsers(Integer from, Integer size) {
+        return userRepository.findAllByOrderByIdAsc(CustomPageable.of(from, size)).stream()
+                .map(UserMapper::toUserDto).collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDto> consumer) {
+        try (Stream<UserView> users = userRepository.streamAll()) {
+            users.map(UserMapper::toUserDto).forEach(consumer);
+        }
     }
 
     public UserDto getUser(Long id) {
@@ -31,7 +45,20 @@ public class UserService {
         if (userDto.getEmail() == null) {
             throw new BadRequestException("Не корректный email");
         }
-        return UserMapper.toUserDto(userRepository.save(UserMapper.fromUserDto(userDto)));
+        User user = userRepository.save(UserMapper.fromUserDto(userDto));
+        userExistenceCache.add(user.getId());
+        return UserMapper.toUserDto(user);
+    }
+
+    public void checkUserExists(long id) {
+        if (userExistenceCache.contains(id)) {
+            return;
+        }
+        long version = userExistenceCache.version();
+        if (!userRepository.existsById(id)) {
+            throw new NotFoundException("Пользователь с id " + id + " не найден");
+        }
+        userExistenceCache.add(id, version);
     }
 
     public UserDto updateUser(UserDto userDto, Long id) {
@@ -52,6 +79,7 @@ public class UserService {
     public UserDto deleteUser(Long id) {
         UserDto userDto = getUser(id);
         userRepository.deleteById(id);
+        userExistenceCache.remove(id);
         return userDto;
     }
 }
\ No newline at end of file
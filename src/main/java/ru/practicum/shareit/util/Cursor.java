@@ -0,0 +1,57 @@
+package ru.practicum.shareit.util;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+@EqualsAndHashCode
+public class Cursor {
+    public static final String HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+    private final LocalDateTime time;
+    private final Long id;
+
+    private Cursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static Cursor of(LocalDateTime time, Long id) {
+        return new Cursor(time, id);
+    }
+
+    public static Cursor of(Long id) {
+        return new Cursor(null, id);
+    }
+
+    public String encode() {
+        String value = (time == null ? "" : time.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            String time = value.substring(0, separator);
+            return new Cursor(time.isEmpty() ? null : LocalDateTime.parse(time),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public static Cursor decodeWithTime(String cursor) {
+        Cursor decoded = decode(cursor);
+        if (decoded.getTime() == null) {
+            throw new BadRequestException("Некорректный курсор: " + cursor);
+        }
+        return decoded;
+    }
+}
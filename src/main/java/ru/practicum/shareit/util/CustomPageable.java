@@ -28,6 +28,10 @@ public class CustomPageable implements Pageable {
         return new CustomPageable(from, size, Sort.unsorted());
     }
 
+    public static Pageable ofSize(Integer size) {
+        return of(0, size == null ? 50 : size);
+    }
+
     @Override
     public int getPageNumber() {
         return 0;
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StatsLogger {
+    private final ObjectProvider<StatsSource> sources;
+
+    @Scheduled(fixedDelayString = "${shareit.stats.interval-ms:300000}",
+            initialDelayString = "${shareit.stats.interval-ms:300000}")
+    public void logStats() {
+        String stats = formatStats();
+        if (!stats.isEmpty()) {
+            log.info(stats);
+        }
+    }
+
+    String formatStats() {
+        return sources.orderedStream().map(StatsSource::getStats).collect(Collectors.joining("; "));
+    }
+}
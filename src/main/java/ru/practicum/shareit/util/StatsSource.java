@@ -0,0 +1,5 @@
+package ru.practicum.shareit.util;
+
+public interface StatsSource {
+    String getStats();
+}
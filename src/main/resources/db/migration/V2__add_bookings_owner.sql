@@ -0,0 +1,7 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+
+UPDATE bookings b SET owner_id = (SELECT i.owner_id FROM items i WHERE i.id = b.item_id) WHERE b.owner_id IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+ALTER TABLE bookings ADD CONSTRAINT fk_bookings_owner_id FOREIGN KEY (owner_id) REFERENCES users (id);
@@ -0,0 +1,14 @@
+CREATE TABLE bookings_archive
+(
+    id         BIGINT      NOT NULL,
+    start_time TIMESTAMP   NOT NULL,
+    end_time   TIMESTAMP   NOT NULL,
+    item_id    BIGINT      NOT NULL,
+    booker_id  BIGINT      NOT NULL,
+    owner_id   BIGINT      NOT NULL,
+    status     VARCHAR(50) NOT NULL,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id),
+    CONSTRAINT fk_bookings_archive_item_id FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_bookings_archive_booker_id FOREIGN KEY (booker_id) REFERENCES users (id),
+    CONSTRAINT fk_bookings_archive_owner_id FOREIGN KEY (owner_id) REFERENCES users (id)
+);
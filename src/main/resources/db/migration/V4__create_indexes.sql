@@ -0,0 +1,15 @@
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_status_end ON bookings (owner_id, status, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_end ON bookings (owner_id, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_end ON bookings (booker_id, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_end ON bookings_archive (booker_id, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_owner_end ON bookings_archive (owner_id, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item_id, start_time);
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_status_end ON bookings (booker_id, item_id, status, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_item_status_end
+    ON bookings_archive (booker_id, item_id, status, end_time);
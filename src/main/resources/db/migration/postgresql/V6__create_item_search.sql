@@ -0,0 +1,21 @@
+DO $$
+BEGIN
+    IF current_setting('server_version_num')::int < 120000 THEN
+        RAISE EXCEPTION 'Поиск вещей требует PostgreSQL 12 или новее: используется генерируемый столбец search_vector';
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        BEGIN
+            CREATE EXTENSION pg_trgm;
+        EXCEPTION WHEN insufficient_privilege THEN
+            RAISE EXCEPTION 'Нет прав на создание pg_trgm: установите расширение заранее от имени суперпользователя';
+        END;
+    END IF;
+END
+$$;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector) WHERE available;
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING GIN (name gin_trgm_ops) WHERE available;
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING GIN (description gin_trgm_ops) WHERE available;
@@ -0,0 +1,186 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.util.CustomPageable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.SqlCapture.capture;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.SqlCapture")
+public class SchemaIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final LocalDateTime MIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int USERS = 50;
+    private static final int ROWS = 2000;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("select count(*) from users", Integer.class) > 0) {
+            return;
+        }
+        dropForeignKeyIndexes();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        for (long i = 1; i <= USERS; i++) {
+            users.add(new Object[]{i, "user" + i, "user" + i + "@test.ru"});
+            items.add(new Object[]{i, "item" + i, "test", i, true});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, owner_id, available)" +
+                " values (?, ?, ?, ?, ?)", items);
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        List<Object[]> requests = new ArrayList<>();
+        List<Object[]> archived = new ArrayList<>();
+        Status[] statuses = Status.values();
+        for (int i = 0; i < ROWS; i++) {
+            long item = i % USERS + 1;
+            long booker = (i * 7L) % USERS + 1;
+            Timestamp start = Timestamp.valueOf(NOW.minusHours(ROWS / 2 - i));
+            Timestamp end = Timestamp.valueOf(NOW.minusHours(ROWS / 2 - i - 2));
+            String status = statuses[i % statuses.length].name();
+            bookings.add(new Object[]{start, end, item, booker, item, status});
+            archived.add(new Object[]{start, end, item, booker, item, status, i + 1L});
+            comments.add(new Object[]{"text", item, booker, start});
+            requests.add(new Object[]{"test", booker, start});
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (start_time, end_time, item_id, booker_id, owner_id," +
+                " status) values (?, ?, ?, ?, ?, ?)", bookings);
+        jdbcTemplate.batchUpdate("insert into bookings_archive (start_time, end_time, item_id, booker_id, owner_id," +
+                " status, id) values (?, ?, ?, ?, ?, ?, ?)", archived);
+        jdbcTemplate.batchUpdate("insert into comments (text, item_id, author_id, created) values (?, ?, ?, ?)",
+                comments);
+        jdbcTemplate.batchUpdate("insert into requests (description, requester_id, created) values (?, ?, ?)",
+                requests);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void shouldUseIndexForBookingsByBooker() {
+        assertThat(explain(capture(() -> bookingRepository.findAllByBookerId(1L, MIN, MAX, MIN, NOW,
+                CustomPageable.of(0, 5))))).contains("IDX_BOOKINGS_BOOKER_END");
+        assertThat(explain(capture(() -> bookingRepository.findAllByBookerIdAfterCursor(1L, MIN, MAX, MIN, MAX, NOW,
+                Long.MAX_VALUE, CustomPageable.ofSize(5))))).contains("IDX_BOOKINGS_BOOKER_END");
+    }
+
+    @Test
+    void shouldUseIndexForBookingsByOwner() {
+        assertThat(explain(capture(() -> bookingRepository.findAllByOwnerIdAndStatus(1L, Status.WAITING,
+                CustomPageable.of(0, 5))))).contains("IDX_BOOKINGS_OWNER_STATUS_END");
+        assertThat(explain(capture(() -> bookingRepository.findAllByOwnerIdAndStatusAfterCursor(1L, Status.WAITING,
+                NOW, Long.MAX_VALUE, CustomPageable.ofSize(5))))).contains("IDX_BOOKINGS_OWNER_STATUS_END");
+        assertThat(explain(capture(() -> bookingRepository.findAllByOwnerId(1L, MIN, MAX, MIN, NOW,
+                CustomPageable.of(0, 5))))).contains("IDX_BOOKINGS_OWNER_END");
+        assertThat(explain(capture(() -> bookingRepository.findAllByOwnerIdAfterCursor(1L, MIN, MAX, MIN, MAX, NOW,
+                Long.MAX_VALUE, CustomPageable.ofSize(5))))).contains("IDX_BOOKINGS_OWNER_END");
+    }
+
+    @Test
+    void shouldUseIndexForBookingsByItem() {
+        assertThat(explain(capture(() -> bookingRepository.findLastAndNextByItemIds(Set.of(1L, 2L), NOW,
+                Status.REJECTED)))).contains("IDX_BOOKINGS_ITEM_START");
+    }
+
+    @Test
+    void shouldUseIndexForCommentEligibility() {
+        assertThat(explain(capture(() -> bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(1L,
+                2L, Status.APPROVED, NOW)))).contains("IDX_BOOKINGS_BOOKER_ITEM_STATUS_END");
+        assertThat(explain(capture(() -> archivedBookingRepository
+                .existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(1L, 2L, Status.APPROVED, NOW))))
+                .contains("IDX_BOOKINGS_ARCHIVE_BOOKER_ITEM_STATUS_END");
+    }
+
+    @Test
+    void shouldUseIndexForWaitingBookingsExpiry() {
+        assertThat(explain(capture(() -> bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING,
+                NOW, CustomPageable.ofSize(5))))).contains("IDX_BOOKINGS_STATUS_START");
+    }
+
+    @Test
+    void shouldUseIndexForItemsByOwner() {
+        assertThat(explain(capture(() -> itemRepository.findAllByOwnerIdAfterCursor(1L, 5L,
+                CustomPageable.ofSize(5))))).contains("IDX_ITEMS_OWNER_ID");
+        assertThat(explain(capture(() -> itemRepository.findAllByOwnerId(1L, CustomPageable.of(0, 5)))))
+                .contains("IDX_ITEMS_OWNER_ID");
+    }
+
+    @Test
+    void shouldUseIndexForCommentsByItems() {
+        assertThat(explain(capture(() -> commentRepository.findAllByItemIds(Set.of(1L, 2L)))))
+                .contains("IDX_COMMENTS_ITEM_CREATED");
+        assertThat(explain(capture(() -> commentRepository.findLatestByItemIds(Set.of(1L, 2L), 3))))
+                .contains("IDX_COMMENTS_ITEM_CREATED");
+    }
+
+    @Test
+    void shouldUseIndexForRequestsByRequester() {
+        assertThat(explain(capture(() -> itemRequestRepository.findAllByRequesterId(1L))))
+                .contains("IDX_REQUESTS_REQUESTER_CREATED");
+    }
+
+    @Test
+    void shouldUseIndexForRequestsFeed() {
+        assertThat(explain(capture(() -> itemRequestRepository.findAllByRequesterIdIsNotAfterCursor(1L, NOW,
+                Long.MAX_VALUE, CustomPageable.ofSize(5))))).contains("IDX_REQUESTS_CREATED_ID");
+        assertThat(explain(capture(() -> itemRequestRepository.findNewest(CustomPageable.of(0, 5)))))
+                .contains("IDX_REQUESTS_CREATED_ID");
+    }
+
+    @Test
+    void shouldUseIndexForArchivedBookings() {
+        assertThat(explain(capture(() -> archivedBookingRepository.findAllByBookerId(1L, List.of(Status.APPROVED),
+                CustomPageable.of(0, 5))))).contains("IDX_BOOKINGS_ARCHIVE_BOOKER_END");
+        assertThat(explain(capture(() -> archivedBookingRepository.findAllByOwnerId(1L, List.of(Status.APPROVED),
+                CustomPageable.of(0, 5))))).contains("IDX_BOOKINGS_ARCHIVE_OWNER_END");
+    }
+
+    private void dropForeignKeyIndexes() {
+        jdbcTemplate.queryForList("select table_name, constraint_name from information_schema.table_constraints" +
+                        " where constraint_type = 'FOREIGN KEY'").forEach(key ->
+                jdbcTemplate.execute("alter table " + key.get("TABLE_NAME") + " drop constraint " +
+                        key.get("CONSTRAINT_NAME")));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
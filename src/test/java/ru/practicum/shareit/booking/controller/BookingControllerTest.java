@@ -6,38 +6,59 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.dto.BookingApproveDto;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.ExportFormat;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingExporter;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
 public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private BookingExporter bookingExporter;
     @Autowired
     private MockMvc mockMvc;
     @Autowired
@@ -120,6 +141,73 @@ public class BookingControllerTest {
         verify(bookingService).approveBooking(1L, 1L, true);
     }
 
+    @Test
+    void shouldCreateBookings() throws Exception {
+        BookingBatchDto bookingBatchDto = BookingBatchDto.builder().bookings(List.of(bookingDtoInput)).build();
+        when(bookingService.createBookings(List.of(bookingDtoInput), 1L, true))
+                .thenReturn(List.of(BookingBatchResultDto.builder().booking(bookingDtoOutput).build()));
+        mockMvc.perform(post(url + "batch")
+                        .content(objectMapper.writeValueAsString(bookingBatchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("partial", String.valueOf(true))
+                        .header(header, 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDtoOutput.getId()), Long.class));
+        verify(bookingService).createBookings(List.of(bookingDtoInput), 1L, true);
+    }
+
+    @Test
+    void shouldCreateBookingsWithPastStart() throws Exception {
+        bookingDtoInput.setStart(LocalDateTime.now().minusDays(1));
+        BookingBatchDto bookingBatchDto = BookingBatchDto.builder().bookings(List.of(bookingDtoInput)).build();
+        mockMvc.perform(post(url + "batch")
+                        .content(objectMapper.writeValueAsString(bookingBatchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(header, 1L))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldNotCreateBookingsOverBatchLimit() throws Exception {
+        BookingBatchDto bookingBatchDto = BookingBatchDto.builder()
+                .bookings(Collections.nCopies(BookingBatchDto.MAX_SIZE + 1, bookingDtoInput)).build();
+        mockMvc.perform(post(url + "batch")
+                        .content(objectMapper.writeValueAsString(bookingBatchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(header, 1L))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void shouldApproveBookings() throws Exception {
+        BookingApproveDto bookingApproveDto = BookingApproveDto.builder().bookingIds(List.of(1L, 2L)).approved(true)
+                .build();
+        when(bookingService.approveBookings(List.of(1L, 2L), 1L, true)).thenReturn(List.of(
+                BookingApproveResultDto.builder().id(1L).status(Status.APPROVED).build(),
+                BookingApproveResultDto.builder().id(2L).status(Status.REJECTED).error("Бронирование уже подтверждено")
+                        .build()));
+        mockMvc.perform(patch(url + "approve")
+                        .content(objectMapper.writeValueAsString(bookingApproveDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(header, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].error", is("Бронирование уже подтверждено")));
+        verify(bookingService).approveBookings(List.of(1L, 2L), 1L, true);
+    }
+
+    @Test
+    void shouldApproveBookingsWithEmptyIds() throws Exception {
+        BookingApproveDto bookingApproveDto = BookingApproveDto.builder().bookingIds(List.of()).approved(true)
+                .build();
+        mockMvc.perform(patch(url + "approve")
+                        .content(objectMapper.writeValueAsString(bookingApproveDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(header, 1))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldGetAllBookingByUserId() throws Exception {
         when(bookingService.getAllBookingByUser(1L, "FUTURE", 0, 5))
@@ -135,6 +223,22 @@ public class BookingControllerTest {
         verify(bookingService).getAllBookingByUser(1L, "FUTURE", 0, 5);
     }
 
+    @Test
+    void shouldGetAllBookingByUserIdAfterCursor() throws Exception {
+        String cursor = Cursor.of(bookingDtoOutput.getEnd(), 2L).encode();
+        when(bookingService.getAllBookingByUserAfterCursor(1L, "ALL", cursor, 5))
+                .thenReturn(Collections.singleton(bookingDtoOutput));
+        mockMvc.perform(get(url)
+                        .header(header, 1)
+                        .param("cursor", cursor)
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(header().string(Cursor.HEADER,
+                        Cursor.of(bookingDtoOutput.getEnd(), bookingDtoOutput.getId()).encode()));
+        verify(bookingService).getAllBookingByUserAfterCursor(1L, "ALL", cursor, 5);
+    }
+
     @Test
     void shouldGetAllBookingByOwner() throws Exception {
         when(bookingService.getAllBookingByOwner(1L, "FUTURE", 0, 5))
@@ -164,4 +268,29 @@ public class BookingControllerTest {
                 .andExpect(result -> assertThat(Objects.requireNonNull(result.getResolvedException()).getClass(),
                         is(BadRequestException.class)));
     }
+
+    @Test
+    void shouldExportBookingsByOwner() throws Exception {
+        MvcResult result = mockMvc.perform(get(url + "/owner/export")
+                        .header(header, 1)
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout(), is(600000L));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings.csv.gz\""));
+        verify(bookingExporter).export(eq(1L), eq(true), eq(ExportFormat.CSV), any());
+    }
+
+    @Test
+    void shouldNotExportBookingsInUnknownFormat() throws Exception {
+        mockMvc.perform(get(url + "/export")
+                        .header(header, 1)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingExporter);
+    }
 }
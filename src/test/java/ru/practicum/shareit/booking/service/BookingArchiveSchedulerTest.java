@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingArchiveSchedulerTest {
+    @Mock
+    private BookingService bookingService;
+    @InjectMocks
+    private BookingArchiveScheduler bookingArchiveScheduler;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(bookingArchiveScheduler, "batchSize", 2);
+        ReflectionTestUtils.setField(bookingArchiveScheduler, "afterDays", 90);
+    }
+
+    @Test
+    void shouldArchiveFinishedBookingsInBatches() {
+        when(bookingService.archiveFinishedBookings(any(), eq(2))).thenReturn(2, 1);
+        bookingArchiveScheduler.archiveFinishedBookings();
+        verify(bookingService, times(2)).archiveFinishedBookings(any(), eq(2));
+        assertThat(bookingArchiveScheduler.getArchivedTotal()).isEqualTo(3L);
+        assertThat(bookingArchiveScheduler.getRuns()).isEqualTo(1L);
+        assertThat(bookingArchiveScheduler.getStats()).isEqualTo("архивация бронирований: запусков 1, перенесено 3");
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingExpirySchedulerTest {
+    @Mock
+    private BookingService bookingService;
+    @InjectMocks
+    private BookingExpiryScheduler bookingExpiryScheduler;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(bookingExpiryScheduler, "batchSize", 2);
+    }
+
+    @Test
+    void shouldExpireWaitingBookingsInBatches() {
+        when(bookingService.expireWaitingBookings(any(), eq(2))).thenReturn(2, 2, 1);
+        bookingExpiryScheduler.expireWaitingBookings();
+        verify(bookingService, times(3)).expireWaitingBookings(any(), eq(2));
+        assertThat(bookingExpiryScheduler.getExpiredTotal()).isEqualTo(5L);
+        assertThat(bookingExpiryScheduler.getRuns()).isEqualTo(1L);
+        assertThat(bookingExpiryScheduler.getStats()).isEqualTo("истечение бронирований: запусков 1, отклонено 5");
+    }
+
+    @Test
+    void shouldExpireNothing() {
+        when(bookingService.expireWaitingBookings(any(), eq(2))).thenReturn(0);
+        bookingExpiryScheduler.expireWaitingBookings();
+        verify(bookingService).expireWaitingBookings(any(), eq(2));
+        assertThat(bookingExpiryScheduler.getExpiredTotal()).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.ExportFormat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+public class BookingExportBenchmarkTest {
+    private static final int HOT_BOOKINGS = 20_000;
+    private static final int ARCHIVED_BOOKINGS = 5_000;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingExporter bookingExporter;
+    private Long bookerId;
+    private Long ownerId;
+
+    @BeforeEach
+    void seed() {
+        ownerId = insertUser("export-owner@test.ru");
+        bookerId = insertUser("export-booker@test.ru");
+        jdbcTemplate.update("insert into items (name, description, owner_id, available) values (?, ?, ?, ?)",
+                "Дрель, ударная", "test", ownerId, true);
+        Long itemId = jdbcTemplate.queryForObject("select id from items where owner_id = ?", Long.class, ownerId);
+        LocalDateTime start = LocalDateTime.now().minusYears(3);
+        List<Object[]> hot = new ArrayList<>();
+        for (int i = 0; i < HOT_BOOKINGS; i++) {
+            hot.add(new Object[]{Timestamp.valueOf(start.plusHours(i)), Timestamp.valueOf(start.plusHours(i + 1)),
+                    itemId, bookerId, ownerId, "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (start_time, end_time, item_id, booker_id, owner_id, status)" +
+                " values (?, ?, ?, ?, ?, ?)", hot);
+        List<Object[]> archived = new ArrayList<>();
+        for (int i = 0; i < ARCHIVED_BOOKINGS; i++) {
+            archived.add(new Object[]{1_000_000L + i, Timestamp.valueOf(start.minusHours(i + 1)),
+                    Timestamp.valueOf(start.minusHours(i)), itemId, bookerId, ownerId, "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("insert into bookings_archive (id, start_time, end_time, item_id, booker_id," +
+                " owner_id, status) values (?, ?, ?, ?, ?, ?, ?)", archived);
+    }
+
+    @Test
+    void shouldExportCompleteHistoryAsNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = measure(ExportFormat.NDJSON, out, false);
+        List<String> lines = unzip(out.toByteArray());
+        assertThat(rows).isEqualTo(HOT_BOOKINGS + ARCHIVED_BOOKINGS);
+        assertThat(lines).hasSize(HOT_BOOKINGS + ARCHIVED_BOOKINGS);
+        assertThat(lines.get(0)).startsWith("{").contains("\"booker\"");
+    }
+
+    @Test
+    void shouldExportCompleteHistoryAsCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = measure(ExportFormat.CSV, out, true);
+        List<String> lines = unzip(out.toByteArray());
+        assertThat(rows).isEqualTo(HOT_BOOKINGS + ARCHIVED_BOOKINGS);
+        assertThat(lines).hasSize(HOT_BOOKINGS + ARCHIVED_BOOKINGS + 1);
+        assertThat(lines.get(0)).startsWith("id,start,end");
+        assertThat(lines.get(1)).contains(",\"Дрель, ударная\",");
+    }
+
+    private long measure(ExportFormat format, ByteArrayOutputStream out, boolean byOwner) throws IOException {
+        long started = System.nanoTime();
+        long rows = bookingExporter.export(byOwner ? ownerId : bookerId, byOwner, format, out);
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        log.info("Выгрузка {}: {} строк, {} байт gzip, {} строк/с", format, rows, out.size(),
+                Math.round(rows / seconds));
+        return rows;
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", "user", email);
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+
+    private List<String> unzip(byte[] bytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.ExportFormat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class BookingExporterTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingExporter bookingExporter;
+    private Long bookerId;
+    private Long ownerId;
+
+    @BeforeEach
+    void seed() {
+        ownerId = insertUser("exporter-owner@test.ru");
+        bookerId = insertUser("exporter-booker@test.ru");
+        jdbcTemplate.update("insert into items (name, description, owner_id, available) values (?, ?, ?, ?)",
+                "Дрель, ударная", "test", ownerId, true);
+        Long itemId = jdbcTemplate.queryForObject("select id from items where owner_id = ?", Long.class, ownerId);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into bookings (start_time, end_time, item_id, booker_id, owner_id, status)" +
+                            " values (?, ?, ?, ?, ?, ?)", Timestamp.valueOf(start.plusHours(i)),
+                    Timestamp.valueOf(start.plusHours(i + 1)), itemId, bookerId, ownerId, "APPROVED");
+        }
+        for (int i = 0; i < 2; i++) {
+            jdbcTemplate.update("insert into bookings_archive (id, start_time, end_time, item_id, booker_id," +
+                            " owner_id, status) values (?, ?, ?, ?, ?, ?, ?)", 1_000_000L + i,
+                    Timestamp.valueOf(start.minusHours(i + 1)), Timestamp.valueOf(start.minusHours(i)), itemId,
+                    bookerId, ownerId, "REJECTED");
+        }
+    }
+
+    @Test
+    void shouldExportHotAndArchivedBookingsAsNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(bookingExporter.export(bookerId, false, ExportFormat.NDJSON, out)).isEqualTo(5L);
+        List<String> lines = unzip(out.toByteArray());
+        assertThat(lines).hasSize(5);
+        assertThat(lines).allMatch(line -> line.startsWith("{"));
+    }
+
+    @Test
+    void shouldExportHotAndArchivedBookingsAsCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(bookingExporter.export(ownerId, true, ExportFormat.CSV, out)).isEqualTo(5L);
+        List<String> lines = unzip(out.toByteArray());
+        assertThat(lines).hasSize(6);
+        assertThat(lines.get(0)).startsWith("id,start,end");
+        assertThat(lines.stream().filter(line -> line.contains("REJECTED")).count()).isEqualTo(2L);
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", "user", email);
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+
+    private List<String> unzip(byte[] bytes) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Booking booking;
+
+    @BeforeEach
+    void setup() {
+        start = LocalDateTime.now().plusDays(1);
+        end = start.plusDays(2);
+        booking = Booking.builder().id(1L).start(start).end(end).build();
+    }
+
+    @Test
+    void shouldReserveFreeInterval() {
+        stubBookings(List.of(booking));
+        assertThat(bookingIntervalIndex.reserve(1L, end, end.plusDays(1))).isTrue();
+        assertThat(bookingIntervalIndex.reserve(1L, start.minusDays(1), start)).isTrue();
+    }
+
+    @Test
+    void shouldNotReserveOverlappingInterval() {
+        stubBookings(List.of(booking));
+        assertThat(bookingIntervalIndex.reserve(1L, start.minusDays(1), start.plusHours(1))).isFalse();
+        assertThat(bookingIntervalIndex.reserve(1L, start.plusHours(1), end.minusHours(1))).isFalse();
+        assertThat(bookingIntervalIndex.reserve(1L, end.minusHours(1), end.plusDays(1))).isFalse();
+    }
+
+    @Test
+    void shouldReserveAfterRelease() {
+        when(bookingRepository.findAllByItem_IdAndStatusInAndEndAfter(eq(1L), any(), any()))
+                .thenReturn(List.of(booking), List.of());
+        assertThat(bookingIntervalIndex.reserve(1L, start, end)).isFalse();
+        bookingIntervalIndex.release(1L, start, end);
+        assertThat(bookingIntervalIndex.reserve(1L, start, end)).isTrue();
+        assertThat(bookingIntervalIndex.reserve(1L, start, end)).isFalse();
+        verify(bookingRepository, times(2)).findAllByItem_IdAndStatusInAndEndAfter(eq(1L), any(), any());
+    }
+
+    @Test
+    void shouldGetIntervalsIntersectingPeriod() {
+        stubBookings(List.of(booking));
+        assertThat(bookingIntervalIndex.getIntervals(1L, start.plusHours(1), end).size()).isEqualTo(1);
+        assertThat(bookingIntervalIndex.getIntervals(1L, end, end.plusDays(1)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldNotReserveInsideOverlappingStoredBookings() {
+        Booking nested = Booking.builder().id(2L).start(start.plusHours(1)).end(start.plusHours(2)).build();
+        stubBookings(List.of(booking, nested));
+        assertThat(bookingIntervalIndex.reserve(1L, start.plusHours(5), start.plusHours(6))).isFalse();
+        assertThat(bookingIntervalIndex.getIntervals(1L, start, end).get(start)).isEqualTo(end);
+    }
+
+    @Test
+    void shouldReleaseOnlyOneOfBookingsWithSameStart() {
+        Booking shorter = Booking.builder().id(2L).start(start).end(start.plusHours(2)).build();
+        when(bookingRepository.findAllByItem_IdAndStatusInAndEndAfter(eq(1L), any(), any()))
+                .thenReturn(List.of(booking, shorter), List.of());
+        assertThat(bookingIntervalIndex.reserve(1L, start.plusHours(3), start.plusHours(4))).isFalse();
+        bookingIntervalIndex.release(1L, start, start.plusHours(2));
+        assertThat(bookingIntervalIndex.reserve(1L, start.plusHours(3), start.plusHours(4))).isFalse();
+        bookingIntervalIndex.release(1L, start, end);
+        assertThat(bookingIntervalIndex.reserve(1L, start.plusHours(3), start.plusHours(4))).isTrue();
+    }
+
+    @Test
+    void shouldDropEndedIntervalsAndEmptyTimelines() {
+        LocalDateTime now = LocalDateTime.now();
+        stubBookings(List.of());
+        assertThat(bookingIntervalIndex.reserve(1L, now.minusHours(2), now.minusHours(1))).isTrue();
+        assertThat(bookingIntervalIndex.size()).isEqualTo(1);
+        assertThat(bookingIntervalIndex.getIntervals(1L, now.minusHours(3), now).isEmpty()).isTrue();
+        assertThat(bookingIntervalIndex.size()).isZero();
+    }
+
+    @Test
+    void shouldLoadTimelineWithoutBlockingOtherCallers() {
+        AtomicBoolean nested = new AtomicBoolean();
+        when(bookingRepository.findAllByItem_IdAndStatusInAndEndAfter(eq(1L), any(), any())).thenAnswer(invocation -> {
+            if (nested.compareAndSet(false, true)) {
+                assertThat(CompletableFuture.supplyAsync(() -> bookingIntervalIndex.reserve(1L, end, end.plusDays(1)))
+                        .get(5, TimeUnit.SECONDS)).isTrue();
+            }
+            return List.of(booking);
+        });
+        assertThat(bookingIntervalIndex.reserve(1L, end, end.plusHours(1))).isFalse();
+        assertThat(bookingIntervalIndex.getIntervals(1L, start, end.plusDays(2)).get(end)).isEqualTo(end.plusDays(1));
+    }
+
+    private void stubBookings(List<Booking> bookings) {
+        when(bookingRepository.findAllByItem_IdAndStatusInAndEndAfter(eq(1L), any(), any())).thenReturn(bookings);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingDtoInput;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.model.Status;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class BookingIntervalReleaseTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingService bookingService;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+
+    @BeforeEach
+    void seed() {
+        ownerId = insertUser("interval-owner@test.ru");
+        bookerId = insertUser("interval-booker@test.ru");
+        jdbcTemplate.update("insert into items (name, description, owner_id, available) values (?, ?, ?, ?)",
+                "item", "test", ownerId, true);
+        itemId = jdbcTemplate.queryForObject("select id from items where owner_id = ?", Long.class, ownerId);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from bookings where item_id = ?", itemId);
+        jdbcTemplate.update("delete from items where id = ?", itemId);
+        jdbcTemplate.update("delete from users where id in (?, ?)", ownerId, bookerId);
+    }
+
+    @Test
+    void shouldBookSlotAgainAfterRejectingBookingWithNanosecondTimes() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS).plusNanos(123456789);
+        BookingDtoInput bookingDtoInput = BookingDtoInput.builder().itemId(itemId).start(start)
+                .end(start.plusDays(1)).build();
+        BookingDtoOutput created = bookingService.createBooking(bookingDtoInput, bookerId);
+        assertThat(created.getStart()).isEqualTo(start.truncatedTo(ChronoUnit.MICROS));
+        assertThat(bookingService.approveBooking(created.getId(), ownerId, false).getStatus())
+                .isEqualTo(Status.REJECTED);
+        assertThat(bookingService.createBooking(bookingDtoInput, bookerId).getStatus()).isEqualTo(Status.WAITING);
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", "user", email);
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+}
@@ -3,34 +3,48 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.BookingApproveResultDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.Cursor;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +56,10 @@ public class BookingServiceTest {
     private ItemRepository itemRepository;
     @Mock
     private BookingRepository bookingRepository;
+    @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
     @InjectMocks
     private BookingService bookingService;
     private Booking booking;
@@ -66,12 +84,30 @@ public class BookingServiceTest {
     void shouldCreateBooking() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.ofNullable(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.ofNullable(item));
+        when(bookingIntervalIndex.reserve(any(), any(), any())).thenReturn(true);
         when(bookingRepository.save(any())).thenReturn(booking);
         BookingDtoOutput result = bookingService.createBooking(bookingDtoInput, anyLong());
         assertThat(result).isNotNull().isEqualTo(bookingDtoOutput);
         verify(bookingRepository).save(any());
     }
 
+    @Test
+    void shouldCreateBookingIfItemAlreadyBooked() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.ofNullable(item));
+        when(bookingIntervalIndex.reserve(any(), any(), any())).thenReturn(false);
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(bookingDtoInput, 1L));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldCreateBookingIfEndTimeEqualsStart() {
+        bookingDtoInput.setEnd(bookingDtoInput.getStart());
+        when(userRepository.findById(anyLong())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.ofNullable(item));
+        assertThrows(BadRequestException.class, () -> bookingService.createBooking(bookingDtoInput, 1L));
+    }
+
     @Test
     void shouldCreateBookingIfBookerIsOwner() {
         booking.getBooker().setId(2L);
@@ -119,6 +155,24 @@ public class BookingServiceTest {
         assertThat(result).isNotNull().isEqualTo(bookingDtoOutput);
     }
 
+    @Test
+    void shouldGetArchivedBooking() {
+        ArchivedBooking archived = ArchivedBooking.builder().id(7L).start(booking.getStart().minusDays(200))
+                .end(booking.getEnd().minusDays(200)).status(Status.APPROVED).item(item).booker(user)
+                .ownerId(2L).build();
+        when(bookingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedBookingRepository.findById(7L)).thenReturn(Optional.of(archived));
+        assertThat(bookingService.getBooking(7L, 2L)).isEqualTo(BookingMapper.toBookingDtoOutput(archived));
+        assertThrows(NotFoundException.class, () -> bookingService.getBooking(7L, 40L));
+    }
+
+    @Test
+    void shouldNotGetUnknownBooking() {
+        when(bookingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(archivedBookingRepository.findById(7L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> bookingService.getBooking(7L, 1L));
+    }
+
     @Test
     void shouldGetBookingIfUserDontBooking() {
         when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
@@ -127,54 +181,227 @@ public class BookingServiceTest {
 
     @Test
     void shouldApproveBooking() {
-        when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
-        when(bookingRepository.save(any())).thenReturn(booking);
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 2L)).thenReturn(Optional.of(toBookingView(booking)));
+        when(bookingRepository.updateStatus(1L, 2L, Status.WAITING, Status.APPROVED)).thenReturn(1);
         BookingDtoOutput result = bookingService.approveBooking(1L, 2L, true);
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(bookingDtoOutput.getId());
-        verify(bookingRepository).save(any());
+        assertThat(result.getStatus()).isEqualTo(Status.APPROVED);
+        verify(bookingRepository, never()).findById(any());
+        verify(bookingIntervalIndex, never()).releaseAfterCommit(any(), any(), any());
     }
 
     @Test
     void shouldApproveBookingIfUserNotOwner() {
-        when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 1L)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> bookingService.approveBooking(1L, 1L, true));
+        verify(bookingRepository, never()).updateStatus(any(), any(), any(), any());
     }
 
     @Test
     void shouldApproveBookingIfAllReadyApproved() {
         booking.setStatus(Status.APPROVED);
-        when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 2L)).thenReturn(Optional.of(toBookingView(booking)));
+        assertThrows(BadRequestException.class, () -> bookingService.approveBooking(1L, 2L, true));
+        verify(bookingRepository, never()).updateStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldApproveBookingIfApprovedConcurrently() {
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 2L)).thenReturn(Optional.of(toBookingView(booking)));
+        when(bookingRepository.updateStatus(1L, 2L, Status.WAITING, Status.APPROVED)).thenReturn(0);
         assertThrows(BadRequestException.class, () -> bookingService.approveBooking(1L, 2L, true));
     }
 
+    @Test
+    void shouldApproveBookingWithIncorrectId() {
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 2L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> bookingService.approveBooking(1L, 2L, true));
+    }
+
     @Test
     void shouldRejectBooking() {
-        when(bookingRepository.findById(1L)).thenReturn(Optional.ofNullable(booking));
-        when(bookingRepository.save(any())).thenReturn(booking);
+        when(bookingRepository.findViewByIdAndOwnerId(1L, 2L)).thenReturn(Optional.of(toBookingView(booking)));
+        when(bookingRepository.updateStatus(1L, 2L, Status.WAITING, Status.REJECTED)).thenReturn(1);
         BookingDtoOutput result = bookingService.approveBooking(1L, 2L, false);
         assertThat(result).isNotNull();
         assertThat(result.getStatus()).isEqualTo(Status.REJECTED);
-        verify(bookingRepository).save(any());
+        verify(bookingIntervalIndex).releaseAfterCommit(item.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    @Test
+    void shouldCreateBookingsPartially() {
+        item.setId(1L);
+        BookingDtoInput unknownItem = BookingDtoInput.builder().itemId(404L).start(bookingDtoInput.getStart())
+                .end(bookingDtoInput.getEnd()).build();
+        BookingDtoInput overlapping = BookingDtoInput.builder().itemId(1L).start(bookingDtoInput.getStart())
+                .end(bookingDtoInput.getEnd()).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findAllWithOwnerByIdIn(Set.of(1L, 404L))).thenReturn(List.of(item));
+        when(bookingIntervalIndex.reserve(any(), any(), any())).thenReturn(true, false);
+        when(bookingRepository.saveAll(any())).thenReturn(List.of(booking));
+        List<BookingBatchResultDto> result = bookingService.createBookings(List.of(unknownItem, bookingDtoInput,
+                overlapping), 1L, true);
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.get(0).getError()).isEqualTo("Предмет с id 404 не найден");
+        assertThat(result.get(1)).isEqualTo(BookingBatchResultDto.builder()
+                .booking(BookingMapper.toBookingDtoOutput(booking)).build());
+        assertThat(result.get(2).getError()).isEqualTo("Предмет уже забронирован на это время");
+        verify(bookingIntervalIndex).releaseOnRollback(1L,
+                bookingDtoInput.getStart().truncatedTo(ChronoUnit.MICROS),
+                bookingDtoInput.getEnd().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    @Test
+    void shouldNotCreateBookingsIfOneIsIncorrect() {
+        item.setId(1L);
+        BookingDtoInput past = BookingDtoInput.builder().itemId(1L).start(LocalDateTime.now().minusDays(2))
+                .end(LocalDateTime.now().minusDays(1)).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findAllWithOwnerByIdIn(Set.of(1L))).thenReturn(List.of(item));
+        when(bookingIntervalIndex.reserve(any(), any(), any())).thenReturn(true);
+        assertThrows(BadRequestException.class, () -> bookingService.createBookings(List.of(bookingDtoInput, past),
+                1L, false));
+        verify(bookingRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldExpireWaitingBookings() {
+        item.setId(1L);
+        LocalDateTime now = LocalDateTime.now();
+        BookingStatusView waiting = toBookingStatusView(booking);
+        when(bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING, now, CustomPageable.ofSize(10)))
+                .thenReturn(List.of(waiting));
+        when(bookingRepository.updateStatuses(List.of(1L), Status.WAITING, Status.REJECTED)).thenReturn(1);
+        assertThat(bookingService.expireWaitingBookings(now, 10)).isEqualTo(1);
+        verify(bookingIntervalIndex).releaseAfterCommit(1L, booking.getStart(), booking.getEnd());
+    }
+
+    @Test
+    void shouldExpireNoWaitingBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        when(bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING, now, CustomPageable.ofSize(10)))
+                .thenReturn(List.of());
+        assertThat(bookingService.expireWaitingBookings(now, 10)).isEqualTo(0);
+        verify(bookingRepository, never()).updateStatuses(any(), any(), any());
+    }
+
+    @Test
+    void shouldApproveBookings() {
+        BookingStatusView waiting = toBookingStatusView(booking);
+        booking.setStatus(Status.APPROVED);
+        booking.setId(2L);
+        BookingStatusView approved = toBookingStatusView(booking);
+        when(bookingRepository.findAllForUpdateByIdInAndOwnerId(Set.of(1L, 2L, 3L), 2L))
+                .thenReturn(List.of(waiting, approved));
+        List<BookingApproveResultDto> result = bookingService.approveBookings(List.of(3L, 1L, 2L, 1L), 2L, false);
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.get(0).getId()).isEqualTo(3L);
+        assertThat(result.get(0).getError()).isNotNull();
+        assertThat(result.get(1)).isEqualTo(BookingApproveResultDto.builder().id(1L).status(Status.REJECTED).build());
+        assertThat(result.get(2).getStatus()).isEqualTo(Status.APPROVED);
+        assertThat(result.get(2).getError()).isNotNull();
+        verify(bookingRepository).updateStatuses(List.of(1L), 2L, Status.WAITING, Status.REJECTED);
+        verify(bookingIntervalIndex).releaseAfterCommit(item.getId(), waiting.getStartTime(), waiting.getEndTime());
+    }
+
+    @Test
+    void shouldApproveBookingsIfNoneWaiting() {
+        when(bookingRepository.findAllForUpdateByIdInAndOwnerId(Set.of(1L), 1L)).thenReturn(List.of());
+        List<BookingApproveResultDto> result = bookingService.approveBookings(List.of(1L), 1L, true);
+        assertThat(result.get(0).getStatus()).isNull();
+        verify(bookingRepository, never()).updateStatuses(any(), any(), any(), any());
     }
 
     @Test
     void shouldGetAllBookingByUserWithStateAll() {
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "ALL", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
-        verify(bookingRepository).findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5));
+        assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
+    }
+
+    @Test
+    void shouldGetAllBookingByUserFromArchiveOnDeepPage() {
+        BookingView archived = archivedView(Status.APPROVED);
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(10, 5)))).thenReturn(new PageImpl<>(List.of(), CustomPageable.of(10, 5), 3));
+        when(archivedBookingRepository.findAllByBookerId(2L, List.of(Status.values()), CustomPageable.of(7, 5)))
+                .thenReturn(List.of(archived));
+        List<BookingDtoOutput> result = new ArrayList<>(bookingService.getAllBookingByUser(2L, "ALL", 10, 5));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0)).isEqualTo(BookingMapper.toBookingDtoOutput(archived));
+    }
+
+    @Test
+    void shouldGetRejectedBookingsFromArchive() {
+        BookingView archived = archivedView(Status.REJECTED);
+        when(bookingRepository.findAllByBookerIdAndStatus(2L, Status.REJECTED, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(), CustomPageable.of(0, 5), 0));
+        when(archivedBookingRepository.findAllByBookerId(2L, List.of(Status.REJECTED), CustomPageable.of(0, 5)))
+                .thenReturn(List.of(archived));
+        when(bookingRepository.findAllByOwnerIdAndStatus(2L, Status.REJECTED, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(), CustomPageable.of(0, 5), 0));
+        when(archivedBookingRepository.findAllByOwnerId(2L, List.of(Status.REJECTED), CustomPageable.of(0, 5)))
+                .thenReturn(List.of(archived));
+        assertThat(new ArrayList<>(bookingService.getAllBookingByUser(2L, "REJECTED", 0, 5)))
+                .isEqualTo(List.of(BookingMapper.toBookingDtoOutput(archived)));
+        assertThat(new ArrayList<>(bookingService.getAllBookingByOwner(2L, "REJECTED", 0, 5)))
+                .isEqualTo(List.of(BookingMapper.toBookingDtoOutput(archived)));
+    }
+
+    @Test
+    void shouldGetWaitingBookingsFromArchiveInBothPagingModes() {
+        BookingView archived = archivedView(Status.WAITING);
+        when(bookingRepository.findAllByBookerIdAndStatus(2L, Status.WAITING, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(), CustomPageable.of(0, 5), 0));
+        when(archivedBookingRepository.findAllByBookerId(2L, List.of(Status.WAITING), CustomPageable.of(0, 5)))
+                .thenReturn(List.of(archived));
+        when(bookingRepository.findAllByOwnerIdAndStatus(2L, Status.WAITING, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(), CustomPageable.of(0, 5), 0));
+        when(archivedBookingRepository.findAllByOwnerId(2L, List.of(Status.WAITING), CustomPageable.of(0, 5)))
+                .thenReturn(List.of(archived));
+        when(archivedBookingRepository.findAllByBookerIdAfterCursor(eq(2L), eq(List.of(Status.WAITING)), any(),
+                any(), eq(CustomPageable.ofSize(5)))).thenReturn(List.of(archived));
+        when(archivedBookingRepository.findAllByOwnerIdAfterCursor(eq(2L), eq(List.of(Status.WAITING)), any(),
+                any(), eq(CustomPageable.ofSize(5)))).thenReturn(List.of(archived));
+        List<BookingDtoOutput> expected = List.of(BookingMapper.toBookingDtoOutput(archived));
+        String cursor = Cursor.of(booking.getEnd(), 10L).encode();
+        assertThat(new ArrayList<>(bookingService.getAllBookingByUser(2L, "WAITING", 0, 5))).isEqualTo(expected);
+        assertThat(new ArrayList<>(bookingService.getAllBookingByOwner(2L, "WAITING", 0, 5))).isEqualTo(expected);
+        assertThat(new ArrayList<>(bookingService.getAllBookingByUserAfterCursor(2L, "WAITING", cursor, 5)))
+                .isEqualTo(expected);
+        assertThat(new ArrayList<>(bookingService.getAllBookingByOwnerAfterCursor(2L, "WAITING", cursor, 5)))
+                .isEqualTo(expected);
     }
 
     @Test
-    void shouldGetAllBookingWhenUserNotFound() {
-        when(userRepository.findById(2L)).thenThrow(NotFoundException.class);
-        assertThrows(NotFoundException.class, () ->
-                bookingService.getAllBookingByUser(2L, "ALL", 0, 5));
+    void shouldNotGetArchiveWhenPageIsFull() {
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 1))))
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking)), CustomPageable.of(0, 1), 3));
+        assertThat(bookingService.getAllBookingByUser(2L, "ALL", 0, 1).size()).isEqualTo(1);
+        verify(archivedBookingRepository, never()).findAllByBookerId(any(), any(), any());
+    }
+
+    @Test
+    void shouldNotGetArchiveForCurrentAndFutureBookings() {
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of()));
+        bookingService.getAllBookingByUser(2L, "CURRENT", 0, 5);
+        bookingService.getAllBookingByUser(2L, "FUTURE", 0, 5);
+        verify(archivedBookingRepository, never()).findAllByBookerId(any(), any(), any());
+    }
+
+    @Test
+    void shouldArchiveFinishedBookings() {
+        LocalDateTime endBefore = LocalDateTime.now().minusDays(90);
+        when(bookingRepository.findIdsByEndBefore(endBefore, CustomPageable.ofSize(10))).thenReturn(List.of(1L, 2L));
+        when(bookingRepository.deleteAllByIds(List.of(1L, 2L))).thenReturn(2);
+        assertThat(bookingService.archiveFinishedBookings(endBefore, 10)).isEqualTo(2);
+        verify(archivedBookingRepository).archiveAllByIdIn(List.of(1L, 2L));
     }
 
     @Test
@@ -185,30 +412,24 @@ public class BookingServiceTest {
 
     @Test
     void shouldGetAllBookingByUserWithStateWaiting() {
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdAndStatusOrderByEndDesc(2L, Status.WAITING,
-                CustomPageable.of(0, 5))).thenReturn(bookingPage);
+        when(bookingRepository.findAllByBookerIdAndStatus(2L, Status.WAITING, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "WAITING", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByBooker_IdAndStatusOrderByEndDesc(2L, Status.WAITING,
-                CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByUserWithStateReject() {
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdAndStatusOrderByEndDesc(2L, Status.REJECTED,
-                CustomPageable.of(0, 5))).thenReturn(bookingPage);
+        booking.setStatus(Status.REJECTED);
+        bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
+        when(bookingRepository.findAllByBookerIdAndStatus(2L, Status.REJECTED, CustomPageable.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "REJECTED", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByBooker_IdAndStatusOrderByEndDesc(2L, Status.REJECTED,
-                CustomPageable.of(0, 5));
     }
 
     @Test
@@ -216,15 +437,18 @@ public class BookingServiceTest {
         booking.setEnd(LocalDateTime.now().minusDays(10));
         booking.setStart(LocalDateTime.now().minusDays(5));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(LocalDateTime.class),
+                eq(CustomPageable.of(0, 5))))
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
+        LocalDateTime before = LocalDateTime.now();
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "PAST", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5));
+        ArgumentCaptor<LocalDateTime> endBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingRepository).findAllByBookerId(eq(2L), any(), any(), any(), endBefore.capture(),
+                eq(CustomPageable.of(0, 5)));
+        assertThat(endBefore.getValue()).isAfterOrEqualTo(before).isBeforeOrEqualTo(LocalDateTime.now());
     }
 
     @Test
@@ -232,15 +456,12 @@ public class BookingServiceTest {
         booking.setStart(LocalDateTime.now().minusDays(1));
         booking.setEnd(LocalDateTime.now().plusDays(5));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "CURRENT", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5));
     }
 
     @Test
@@ -248,56 +469,44 @@ public class BookingServiceTest {
         booking.setStart(LocalDateTime.now().plusDays(1));
         booking.setEnd(LocalDateTime.now().plusDays(5));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByBookerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByUser(2L, "FUTURE", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByBooker_IdOrderByEndDesc(2L, CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByOwnerWithStateAll() {
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByOwnerId(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByOwnerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "ALL", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByOwnerId(2L, CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByOwnerWithStateWaiting() {
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
         when(bookingRepository.findAllByOwnerIdAndStatus(2L, Status.WAITING, CustomPageable.of(0, 5)))
-                .thenReturn(List.of(booking));
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "WAITING", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository)
-                .findAllByOwnerIdAndStatus(2L, Status.WAITING, CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByOwnerWithStateReject() {
         booking.setStatus(Status.REJECTED);
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
         when(bookingRepository.findAllByOwnerIdAndStatus(2L, Status.REJECTED, CustomPageable.of(0, 5)))
-                .thenReturn(List.of(booking));
+                .thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "REJECTED", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository)
-                .findAllByOwnerIdAndStatus(2L, Status.REJECTED, CustomPageable.of(0, 5));
     }
 
     @Test
@@ -305,46 +514,96 @@ public class BookingServiceTest {
         booking.setStart(LocalDateTime.now().minusDays(10));
         booking.setEnd(LocalDateTime.now().minusDays(5));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByOwnerId(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByOwnerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "PAST", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByOwnerId(2L, CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByOwnerWithStateCurrent() {
         booking.setStart(LocalDateTime.now().minusDays(5));
         booking.setEnd(LocalDateTime.now().plusDays(5));
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByOwnerId(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByOwnerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "CURRENT", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByOwnerId(2L, CustomPageable.of(0, 5));
     }
 
     @Test
     void shouldGetAllBookingByOwnerWithStateFuture() {
         booking.setStart(LocalDateTime.now().plusDays(2));
         booking.setEnd(LocalDateTime.now().plusDays(5));
-        Page<Booking> bookingPage = new PageImpl<>(Collections.singletonList(booking));
         bookingDtoOutput = BookingMapper.toBookingDtoOutput(booking);
-        when(userRepository.findById(2L)).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllByOwnerId(2L, CustomPageable.of(0, 5)))
-                .thenReturn(bookingPage);
+        when(bookingRepository.findAllByOwnerId(eq(2L), any(), any(), any(), any(),
+                eq(CustomPageable.of(0, 5)))).thenReturn(new PageImpl<>(List.of(toBookingView(booking))));
         List<BookingDtoOutput> result = bookingService.getAllBookingByOwner(2L, "FUTURE", 0, 5)
                 .stream().collect(Collectors.toList());
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
-        verify(bookingRepository).findAllByOwnerId(2L, CustomPageable.of(0, 5));
+    }
+
+    @Test
+    void shouldGetAllBookingByUserAfterCursor() {
+        String cursor = Cursor.of(booking.getEnd(), 10L).encode();
+        when(bookingRepository.findAllByBookerIdAndStatusAfterCursor(2L, Status.WAITING, booking.getEnd(), 10L,
+                CustomPageable.of(0, 5))).thenReturn(List.of(toBookingView(booking)));
+        List<BookingDtoOutput> result = new ArrayList<>(bookingService.getAllBookingByUserAfterCursor(2L, "WAITING",
+                cursor, 5));
+        assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
+    }
+
+    @Test
+    void shouldGetAllBookingByOwnerAfterCursor() {
+        String cursor = Cursor.of(booking.getEnd(), 10L).encode();
+        when(bookingRepository.findAllByOwnerIdAfterCursor(eq(2L), any(), any(), any(), any(), eq(booking.getEnd()),
+                eq(10L), eq(CustomPageable.of(0, 50)))).thenReturn(List.of(toBookingView(booking)));
+        List<BookingDtoOutput> result = new ArrayList<>(bookingService.getAllBookingByOwnerAfterCursor(2L, "FUTURE",
+                cursor, null));
+        assertThat(result.get(0)).isEqualTo(bookingDtoOutput);
+    }
+
+    @Test
+    void shouldGetAllBookingAfterIncorrectCursor() {
+        assertThrows(BadRequestException.class, () ->
+                bookingService.getAllBookingByUserAfterCursor(2L, "ALL", "abc", 5));
+        assertThrows(BadRequestException.class, () ->
+                bookingService.getAllBookingByUserAfterCursor(2L, "ALL", Cursor.of(1L).encode(), 5));
+    }
+
+    private BookingView archivedView(Status status) {
+        return toBookingView(Booking.builder().id(7L).start(booking.getStart().minusDays(200))
+                .end(booking.getEnd().minusDays(200)).status(status).item(item).booker(user).build());
+    }
+
+    private BookingView toBookingView(Booking booking) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", booking.getId());
+        values.put("startTime", booking.getStart());
+        values.put("endTime", booking.getEnd());
+        values.put("status", booking.getStatus());
+        values.put("itemId", booking.getItem().getId());
+        values.put("itemName", booking.getItem().getName());
+        values.put("itemDescription", booking.getItem().getDescription());
+        values.put("itemAvailable", booking.getItem().getAvailable());
+        values.put("bookerId", booking.getBooker().getId());
+        values.put("bookerName", booking.getBooker().getName());
+        values.put("bookerEmail", booking.getBooker().getEmail());
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingView.class, values);
+    }
+
+    private BookingStatusView toBookingStatusView(Booking booking) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", booking.getId());
+        values.put("itemId", booking.getItem().getId());
+        values.put("startTime", booking.getStart());
+        values.put("endTime", booking.getEnd());
+        values.put("status", booking.getStatus());
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingStatusView.class, values);
     }
 }
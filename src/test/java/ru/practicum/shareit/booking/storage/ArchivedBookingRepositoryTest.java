@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.CustomPageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@DataJpaTest
+public class ArchivedBookingRepositoryTest {
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    private Booking oldBooking;
+    private Booking booking;
+    private User itemOwner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setup() {
+        itemOwner = userRepository.save(User.builder().name("user").email("user@user.ru").build());
+        booker = userRepository.save(User.builder().name("booker").email("booker@booker.ru").build());
+        item = itemRepository.save(Item.builder().description("test").name("item").owner(itemOwner).available(true)
+                .build());
+        oldBooking = bookingRepository.save(Booking.builder().booker(booker).start(LocalDateTime.now().minusDays(200))
+                .end(LocalDateTime.now().minusDays(190)).status(Status.APPROVED).item(item)
+                .ownerId(itemOwner.getId()).build());
+        booking = bookingRepository.save(Booking.builder().booker(booker).start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(5)).status(Status.WAITING).item(item).ownerId(itemOwner.getId())
+                .build());
+        List<Long> ids = bookingRepository.findIdsByEndBefore(LocalDateTime.now().minusDays(90),
+                CustomPageable.ofSize(10));
+        assertThat(ids).isEqualTo(List.of(oldBooking.getId()));
+        assertThat(archivedBookingRepository.archiveAllByIdIn(ids)).isEqualTo(1);
+        assertThat(bookingRepository.deleteAllByIds(ids)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMoveFinishedBookingToArchive() {
+        assertThat(bookingRepository.findById(oldBooking.getId()).isPresent()).isFalse();
+        assertThat(bookingRepository.findById(booking.getId()).isPresent()).isTrue();
+        ArchivedBooking archived = archivedBookingRepository.findById(oldBooking.getId()).orElseThrow();
+        assertThat(archived.getOwnerId()).isEqualTo(itemOwner.getId());
+        assertThat(archived.getStatus()).isEqualTo(Status.APPROVED);
+    }
+
+    @Test
+    void shouldFindArchivedByBookerAndOwner() {
+        List<BookingView> byBooker = archivedBookingRepository.findAllByBookerId(booker.getId(),
+                List.of(Status.values()), CustomPageable.ofSize(5));
+        assertThat(byBooker.size()).isEqualTo(1);
+        assertThat(byBooker.get(0).getItemName()).isEqualTo(item.getName());
+        assertThat(archivedBookingRepository.findAllByOwnerId(itemOwner.getId(), List.of(Status.REJECTED),
+                CustomPageable.ofSize(5)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFindArchivedAfterCursor() {
+        List<BookingView> result = archivedBookingRepository.findAllByOwnerIdAfterCursor(itemOwner.getId(),
+                List.of(Status.values()), LocalDateTime.now(), Long.MAX_VALUE, CustomPageable.ofSize(5));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getBookerEmail()).isEqualTo(booker.getEmail());
+        assertThat(archivedBookingRepository.findAllByBookerIdAfterCursor(booker.getId(), List.of(Status.values()),
+                result.get(0).getEndTime(), result.get(0).getId(), CustomPageable.ofSize(5)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFindLastArchivedByItemIds() {
+        List<BookingDtoItem> result = archivedBookingRepository.findLastByItemIds(List.of(item.getId()),
+                Status.REJECTED);
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(oldBooking.getId());
+    }
+
+    @Test
+    void shouldCheckArchivedBookerExists() {
+        assertThat(archivedBookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(booker.getId(),
+                item.getId(), Status.APPROVED, LocalDateTime.now())).isTrue();
+        assertThat(archivedBookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(booker.getId(),
+                item.getId(), Status.REJECTED, LocalDateTime.now())).isFalse();
+        assertThat(archivedBookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(itemOwner.getId(),
+                item.getId(), Status.APPROVED, LocalDateTime.now())).isFalse();
+    }
+}
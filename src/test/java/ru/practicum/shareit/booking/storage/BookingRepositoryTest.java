@@ -1,9 +1,18 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.model.Item;
@@ -19,8 +28,12 @@ import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class BookingRepositoryTest {
+    private static final LocalDateTime MIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 12, 31, 0, 0);
+    @Autowired
+    private TestEntityManager entityManager;
     @Autowired
     private BookingRepository bookingRepository;
     @Autowired
@@ -42,67 +55,268 @@ public class BookingRepositoryTest {
         item = Item.builder().description("test").name("item").owner(itemOwner).available(true).build();
         item = itemRepository.save(item);
         booking = Booking.builder().booker(booker).start(LocalDateTime.now()).end(LocalDateTime.now().plusDays(5))
-                .status(Status.WAITING).item(item).build();
+                .status(Status.WAITING).item(item).ownerId(itemOwner.getId()).build();
         booking = bookingRepository.save(booking);
         fistBooking = Booking.builder().booker(booker).start(LocalDateTime.now().minusDays(10))
-                .end(LocalDateTime.now().minusDays(5)).status(Status.APPROVED).item(item).build();
+                .end(LocalDateTime.now().minusDays(5)).status(Status.APPROVED).item(item).ownerId(itemOwner.getId())
+                .build();
         fistBooking = bookingRepository.save(fistBooking);
     }
 
     @Test
-    void shouldGetFirstBookingByItemId() {
-        Booking result = bookingRepository.getFirstByItem_IdOrderByStartAsc(item.getId());
-        assertThat(result).isNotNull().isEqualTo(fistBooking);
+    void shouldFindLastAndNextByItemIds() {
+        List<BookingDtoItem> result = bookingRepository.findLastAndNextByItemIds(List.of(item.getId()),
+                fistBooking.getStart().plusDays(1), Status.REJECTED);
+        List<Long> ids = result.stream().map(BookingDtoItem::getId).collect(Collectors.toList());
+        assertThat(ids.size()).isEqualTo(2);
+        assertThat(ids.containsAll(List.of(fistBooking.getId(), booking.getId()))).isTrue();
+    }
+
+    @Test
+    void shouldFindOnlyLastByItemIdsWhenNoFutureBookings() {
+        List<BookingDtoItem> result = bookingRepository.findLastAndNextByItemIds(List.of(item.getId()),
+                LocalDateTime.now(), Status.REJECTED);
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
     }
 
     @Test
-    void shouldGetLastBookingByItemId() {
-        Booking result = bookingRepository.getFirstByItem_IdOrderByEndDesc(item.getId());
-        assertThat(result).isNotNull().isEqualTo(booking);
+    void shouldFindLastAndNextByItemIdsExcludingRejected() {
+        booking.setStatus(Status.REJECTED);
+        bookingRepository.save(booking);
+        List<BookingDtoItem> result = bookingRepository.findLastAndNextByItemIds(List.of(item.getId()),
+                LocalDateTime.now(), Status.REJECTED);
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(fistBooking.getId());
+    }
+
+    @Test
+    void shouldUpdateStatusOnlyIfWaitingAndOwnerMatches() {
+        assertThat(bookingRepository.updateStatus(booking.getId(), booker.getId(), Status.WAITING, Status.APPROVED))
+                .isEqualTo(0);
+        assertThat(bookingRepository.updateStatus(booking.getId(), itemOwner.getId(), Status.WAITING,
+                Status.APPROVED)).isEqualTo(1);
+        assertThat(bookingRepository.updateStatus(booking.getId(), itemOwner.getId(), Status.WAITING,
+                Status.REJECTED)).isEqualTo(0);
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(Status.APPROVED);
+    }
+
+    @Test
+    void shouldFindViewOnlyForOwner() {
+        assertThat(bookingRepository.findViewByIdAndOwnerId(booking.getId(), booker.getId())).isEmpty();
+        BookingView view = bookingRepository.findViewByIdAndOwnerId(booking.getId(), itemOwner.getId()).orElseThrow();
+        assertThat(view.getItemId()).isEqualTo(booking.getItem().getId());
+        assertThat(view.getBookerId()).isEqualTo(booker.getId());
+        assertThat(view.getStatus()).isEqualTo(Status.WAITING);
+    }
+
+    @Test
+    void shouldUpdateStatusesOfOwnedWaitingBookings() {
+        List<BookingStatusView> owned = bookingRepository.findAllForUpdateByIdInAndOwnerId(
+                List.of(booking.getId(), fistBooking.getId(), 404L), itemOwner.getId());
+        assertThat(owned.size()).isEqualTo(2);
+        assertThat(bookingRepository.findAllForUpdateByIdInAndOwnerId(List.of(booking.getId()), booker.getId())
+                .isEmpty()).isTrue();
+        int updated = bookingRepository.updateStatuses(List.of(booking.getId(), fistBooking.getId()),
+                itemOwner.getId(), Status.WAITING, Status.REJECTED);
+        assertThat(updated).isEqualTo(1);
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus()).isEqualTo(Status.REJECTED);
+        assertThat(bookingRepository.findById(fistBooking.getId()).orElseThrow().getStatus())
+                .isEqualTo(Status.APPROVED);
+    }
+
+    @Test
+    void shouldFindAndExpireWaitingBookingsStartedBefore() {
+        LocalDateTime now = booking.getStart().plusHours(1);
+        List<BookingStatusView> result = bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING,
+                now, CustomPageable.ofSize(10));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+        assertThat(bookingRepository.updateStatuses(List.of(booking.getId(), fistBooking.getId()), Status.WAITING,
+                Status.REJECTED)).isEqualTo(1);
+        assertThat(bookingRepository.findAllForUpdateByStatusAndStartBefore(Status.WAITING, now,
+                CustomPageable.ofSize(10)).isEmpty()).isTrue();
     }
 
     @Test
     void shouldCheckExistBookerIsTrue() {
-        boolean result = bookingRepository.existsAllByBooker_IdAndEndBefore(booker.getId(), LocalDateTime.now());
+        boolean result = bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(booker.getId(),
+                item.getId(), Status.APPROVED, LocalDateTime.now());
         assertThat(result).isTrue();
     }
 
     @Test
     void shouldCheckExistBookerIsFalse() {
-        boolean result = bookingRepository.existsAllByBooker_IdAndEndBefore(40L, LocalDateTime.now());
+        boolean result = bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(40L, item.getId(),
+                Status.APPROVED, LocalDateTime.now());
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    void shouldCheckExistBookerIsFalseForOtherItem() {
+        Item otherItem = itemRepository.save(Item.builder().description("other").name("other").owner(itemOwner)
+                .available(true).build());
+        boolean result = bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(booker.getId(),
+                otherItem.getId(), Status.APPROVED, LocalDateTime.now());
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    void shouldCheckExistBookerIsFalseForRejectedBooking() {
+        fistBooking.setStatus(Status.REJECTED);
+        bookingRepository.save(fistBooking);
+        boolean result = bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(booker.getId(),
+                item.getId(), Status.APPROVED, LocalDateTime.now());
         assertThat(result).isFalse();
     }
 
     @Test
     void shouldFindAllByBookerId() {
-        List<Booking> result = bookingRepository
-                .findAllByBooker_IdOrderByEndDesc(booker.getId(), CustomPageable.of(0, 5))
-                .stream().collect(Collectors.toList());
-        assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(booking);
+        List<BookingView> result = bookingRepository.findAllByBookerId(booker.getId(),
+                MIN, MAX, MIN, MAX, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+        assertThat(result.get(0).getItemName()).isEqualTo(item.getName());
+        assertThat(result.get(0).getBookerEmail()).isEqualTo(booker.getEmail());
+    }
+
+    @Test
+    void shouldFindPastByBookerId() {
+        List<BookingView> result = bookingRepository.findAllByBookerId(booker.getId(),
+                MIN, MAX, MIN, LocalDateTime.now(), CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(fistBooking.getId());
+    }
+
+    @Test
+    void shouldFindCurrentByBookerId() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingView> result = bookingRepository.findAllByBookerId(booker.getId(),
+                MIN, now, now, MAX, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+    }
+
+    @Test
+    void shouldFindFutureByBookerId() {
+        assertThat(bookingRepository.findAllByBookerId(booker.getId(),
+                LocalDateTime.now(), MAX, MIN, MAX, CustomPageable.of(0, 5)).isEmpty()).isTrue();
     }
 
     @Test
     void shouldFindAllByBookerIdAndStatus() {
-        List<Booking> result = new ArrayList<>(bookingRepository
-                .findAllByOwnerIdAndStatus(itemOwner.getId(), booking.getStatus(), CustomPageable.of(0, 5)));
-        assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(booking);
+        List<BookingView> result = bookingRepository.findAllByBookerIdAndStatus(booker.getId(),
+                Status.WAITING, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+    }
+
+    @Test
+    void shouldCountAllPagesOfBookings() {
+        Page<BookingView> page = bookingRepository.findAllByOwnerId(itemOwner.getId(),
+                MIN, MAX, MIN, MAX, CustomPageable.of(1, 1));
+        assertThat(page.getContent().size()).isEqualTo(1);
+        assertThat(page.getContent().get(0).getId()).isEqualTo(fistBooking.getId());
+        assertThat(page.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldPageBookingsWithEqualEndByIdDesc() {
+        Booking twin = bookingRepository.save(Booking.builder().booker(booker).start(booking.getStart())
+                .end(booking.getEnd()).status(Status.WAITING).item(item).ownerId(itemOwner.getId()).build());
+        List<Long> bookerIds = new ArrayList<>();
+        List<Long> ownerIds = new ArrayList<>();
+        for (int from = 0; from < 3; from++) {
+            bookingRepository.findAllByBookerId(booker.getId(), MIN, MAX, MIN, MAX,
+                    CustomPageable.of(from, 1)).forEach(b -> bookerIds.add(b.getId()));
+            bookingRepository.findAllByOwnerId(itemOwner.getId(), MIN, MAX, MIN, MAX,
+                    CustomPageable.of(from, 1)).forEach(b -> ownerIds.add(b.getId()));
+        }
+        assertThat(bookerIds).isEqualTo(List.of(twin.getId(), booking.getId(), fistBooking.getId()));
+        assertThat(ownerIds).isEqualTo(List.of(twin.getId(), booking.getId(), fistBooking.getId()));
     }
 
     @Test
     void shouldFindAllByOwnerId() {
-        List<Booking> result = bookingRepository.findAllByOwnerId(itemOwner.getId(), CustomPageable.of(0, 5))
-                .stream().collect(Collectors.toList());
-        assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(booking);
+        List<BookingView> result = bookingRepository.findAllByOwnerId(itemOwner.getId(),
+                MIN, MAX, MIN, MAX, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
     }
 
     @Test
     void shouldFindAllByOwnerIdAndStatus() {
-        List<Booking> result = new ArrayList<>(bookingRepository
-                .findAllByOwnerIdAndStatus(itemOwner.getId(), booking.getStatus(), CustomPageable.of(0, 5)));
-        assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(booking);
+        List<BookingView> result = bookingRepository.findAllByOwnerIdAndStatus(itemOwner.getId(),
+                Status.WAITING, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+    }
+
+    @Test
+    void shouldFindPastByOwnerId() {
+        List<BookingView> result = bookingRepository.findAllByOwnerId(itemOwner.getId(),
+                MIN, MAX, MIN, LocalDateTime.now(), CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(fistBooking.getId());
+    }
+
+    @Test
+    void shouldFindCurrentByOwnerId() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingView> result = bookingRepository.findAllByOwnerId(itemOwner.getId(),
+                MIN, now, now, MAX, CustomPageable.of(0, 5)).getContent();
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(booking.getId());
+    }
+
+    @Test
+    void shouldFindFutureByOwnerId() {
+        assertThat(bookingRepository.findAllByOwnerId(itemOwner.getId(),
+                LocalDateTime.now(), MAX, MIN, MAX, CustomPageable.of(0, 5)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFindAllByBookerIdAfterCursor() {
+        List<BookingView> firstPage = bookingRepository.findAllByBookerIdAfterCursor(booker.getId(),
+                MIN, MAX, MIN, MAX, MAX, Long.MAX_VALUE, CustomPageable.of(0, 1));
+        assertThat(firstPage.size()).isEqualTo(1);
+        assertThat(firstPage.get(0).getId()).isEqualTo(booking.getId());
+        BookingView last = firstPage.get(0);
+        List<BookingView> secondPage = bookingRepository.findAllByBookerIdAfterCursor(booker.getId(),
+                MIN, MAX, MIN, MAX, last.getEndTime(), last.getId(), CustomPageable.of(0, 1));
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertThat(secondPage.get(0).getId()).isEqualTo(fistBooking.getId());
+        assertThat(secondPage.get(0).getItemName()).isEqualTo(fistBooking.getItem().getName());
+        assertThat(secondPage.get(0).getBookerEmail()).isEqualTo(booker.getEmail());
+    }
+
+    @Test
+    void shouldFindAllByOwnerIdAfterCursorWithState() {
+        List<BookingView> result = bookingRepository.findAllByOwnerIdAndStatusAfterCursor(itemOwner.getId(),
+                Status.APPROVED, MAX, Long.MAX_VALUE, CustomPageable.of(0, 5));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(fistBooking.getId());
+    }
+
+    @Test
+    void shouldFindPageOfBookingsWithSingleStatement() {
+        for (int i = 0; i < 3; i++) {
+            User otherOwner = userRepository.save(User.builder().name("owner" + i).email(i + "@owner.ru").build());
+            Item otherItem = itemRepository.save(Item.builder().description("test").name("item" + i)
+                    .owner(otherOwner).available(true).build());
+            bookingRepository.save(Booking.builder().booker(booker).start(LocalDateTime.now().plusDays(i))
+                    .end(LocalDateTime.now().plusDays(i + 1)).status(Status.WAITING).item(otherItem)
+                    .ownerId(otherOwner.getId()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<BookingDtoOutput> result = bookingRepository.findAllByBookerId(booker.getId(),
+                MIN, MAX, MIN, MAX, CustomPageable.of(0, 50))
+                .stream().map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
+        assertThat(result.size()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1L);
     }
 }
@@ -13,15 +13,20 @@ import org.springframework.web.context.WebApplicationContext;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -32,6 +37,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private UserService userService;
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
@@ -106,6 +113,16 @@ public class ItemControllerTest {
         verify(itemService).getItemByOwner(1L, 1L);
     }
 
+    @Test
+    void shouldGetItemByIdWithoutCheckingCaller() throws Exception {
+        when(itemService.getItemByOwner(1L, 9L)).thenReturn(itemDto);
+        mockMvc.perform(get(url + "/{id}", 1)
+                        .header(header, 9))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class));
+        verify(userService, never()).checkUserExists(anyLong());
+    }
+
     @Test
     void shouldUpdateItem() throws Exception {
         itemDto.setName("update");
@@ -148,6 +165,32 @@ public class ItemControllerTest {
         verify(itemService).searchItems("item", 0, 5);
     }
 
+    @Test
+    void shouldSuggestItemNames() throws Exception {
+        when(itemService.suggestItemNames("it", 3)).thenReturn(List.of("item", "items"));
+        mockMvc.perform(get(url + "/suggest")
+                        .param("prefix", "it")
+                        .param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0]", is("item")));
+        verify(itemService).suggestItemNames("it", 3);
+    }
+
+    @Test
+    void shouldGetAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(Collections.singletonList(FreeSlotDto.builder().start(from).end(to).build()));
+        mockMvc.perform(get(url + "/{id}/availability", 1)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)));
+        verify(itemService).getAvailability(1L, from, to);
+    }
+
     @Test
     void shouldCreateComment() throws Exception {
         when(itemService.createComment(commentDto, 1L, 1L)).thenReturn(commentDto);
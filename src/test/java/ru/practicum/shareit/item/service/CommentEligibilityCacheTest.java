@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class CommentEligibilityCacheTest {
+
+    @Test
+    void shouldRememberCompletedPairs() {
+        CommentEligibilityCache cache = new CommentEligibilityCache(10);
+        cache.add(1L, 2L);
+        assertThat(cache.contains(1L, 2L)).isTrue();
+        assertThat(cache.contains(2L, 1L)).isFalse();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPair() {
+        CommentEligibilityCache cache = new CommentEligibilityCache(2);
+        cache.add(1L, 1L);
+        cache.add(1L, 2L);
+        assertThat(cache.contains(1L, 1L)).isTrue();
+        cache.add(1L, 3L);
+        assertThat(cache.contains(1L, 1L)).isTrue();
+        assertThat(cache.contains(1L, 2L)).isFalse();
+        assertThat(cache.contains(1L, 3L)).isTrue();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.CommentDto;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class CommentStatementCountTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private CommentEligibilityCache commentEligibilityCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Long authorId;
+    private Long itemId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        Long ownerId = insertUser("comments-owner@test.ru");
+        authorId = insertUser("comments-author@test.ru");
+        jdbcTemplate.update("insert into items (name, description, owner_id, available) values (?, ?, ?, ?)",
+                "item", "test", ownerId, true);
+        itemId = jdbcTemplate.queryForObject("select id from items where owner_id = ?", Long.class, ownerId);
+        jdbcTemplate.update("insert into bookings (start_time, end_time, item_id, booker_id, owner_id, status)" +
+                        " values (?, ?, ?, ?, ?, ?)", LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), itemId, authorId, ownerId, "APPROVED");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldCreateCommentWithoutLoadingItemOnCachedEligibility() {
+        commentEligibilityCache.add(authorId, itemId);
+        statistics.clear();
+        CommentDto result = itemService.createComment(CommentDto.builder().text("text").build(), itemId, authorId);
+        assertThat(result.getAuthorName()).isEqualTo("user");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", "user", email);
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+}
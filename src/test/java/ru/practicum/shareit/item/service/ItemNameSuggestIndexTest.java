@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemNameSuggestIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    private ItemNameSuggestIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ItemNameSuggestIndex(itemRepository, 100);
+        index.put(1L, "Дрель ударная", "", true);
+        index.put(2L, "дрель", "", true);
+        index.put(3L, "Дрель", "", true);
+        index.put(4L, "Доска", "", true);
+        index.put(5L, "Дрезина", "", false);
+    }
+
+    @Test
+    void shouldSuggestDistinctAvailableNamesByPrefix() {
+        assertThat(index.suggest("ДР", 10)).containsExactly("дрель", "Дрель ударная");
+        assertThat(index.suggest("д", 2)).containsExactly("Доска", "дрель");
+        assertThat(index.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFollowItemUpdates() {
+        index.indexAfterCommit(Item.builder().id(1L).name("Пила").available(true).build());
+        index.indexAfterCommit(Item.builder().id(4L).name("Доска").available(false).build());
+        assertThat(index.suggest("др", 10)).containsExactly("дрель");
+        assertThat(index.suggest("д", 10)).containsExactly("дрель");
+        assertThat(index.suggest("п", 10)).containsExactly("Пила");
+    }
+
+    @Test
+    void shouldKeepIncrementalUpdateMadeDuringBuild() {
+        ItemView stale = mock(ItemView.class);
+        when(stale.getId()).thenReturn(4L);
+        when(itemRepository.findAllAvailableAfterCursor(eq(0L), any())).thenAnswer(invocation -> {
+            index.indexAfterCommit(Item.builder().id(4L).name("Доска").available(false).build());
+            return List.of(stale);
+        });
+        index.build();
+        assertThat(index.suggest("до", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemSearchCacheTest {
+    private final ItemDto drill = ItemDto.builder().id(1L).name("Дрель").description("Ударная").available(true).build();
+
+    @Test
+    void shouldCacheByNormalizedKeywordAndPage() {
+        ItemSearchCache cache = new ItemSearchCache(10, 60000);
+        cache.put(cache.getGeneration(), "ДРЕЛЬ", 0, 5, List.of(drill));
+        assertThat(cache.get("дрель", 0, 5)).contains(List.of(drill));
+        assertThat(cache.get("дрель", 5, 5)).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getStats()).isEqualTo("кэш поиска вещей: попаданий 1, промахов 1, вытеснений 0, сбросов 0");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedAndExpired() {
+        ItemSearchCache cache = new ItemSearchCache(1, 60000);
+        cache.put(cache.getGeneration(), "дрель", 0, 5, List.of(drill));
+        cache.put(cache.getGeneration(), "пила", 0, 5, List.of());
+        assertThat(cache.get("дрель", 0, 5)).isEmpty();
+        ItemSearchCache expiring = new ItemSearchCache(10, -1);
+        expiring.put(expiring.getGeneration(), "дрель", 0, 5, List.of(drill));
+        assertThat(expiring.get("дрель", 0, 5)).isEmpty();
+        assertThat(cache.getEvictions() + expiring.getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldInvalidateOnlyAffectedKeywords() {
+        ItemSearchCache cache = new ItemSearchCache(10, 60000);
+        cache.put(cache.getGeneration(), "дрель", 0, 5, List.of(drill));
+        cache.put(cache.getGeneration(), "пила", 0, 5, List.of());
+        Item item = Item.builder().id(1L).name("Дрель").description("Ударная").available(true).build();
+        String before = cache.searchableText(item);
+        item.setAvailable(false);
+        cache.invalidateAfterCommit(before, cache.searchableText(item));
+        assertThat(cache.get("дрель", 0, 5)).isEmpty();
+        assertThat(cache.get("пила", 0, 5)).contains(List.of());
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotStoreResultComputedBeforeInvalidation() {
+        ItemSearchCache cache = new ItemSearchCache(10, 60000);
+        long generation = cache.getGeneration();
+        cache.invalidateAfterCommit(null, "пила новая");
+        cache.put(generation, "пила", 0, 5, List.of());
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ItemSearchIndex(itemRepository, "index", 100);
+        index.put(1L, "Дрель ударная", "Мощная", true);
+        index.put(2L, "Отвертка", "Аккумуляторная дрель", true);
+        index.put(3L, "Дрель", "Сломана", false);
+    }
+
+    @Test
+    void shouldFindBySubstringAndRankNameMatchesFirst() {
+        assertThat(index.search("дРЕл", 0, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("рель", 0, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("дрель", 1, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void shouldMatchKeywordAsPhraseLikeDatabaseSearch() {
+        assertThat(index.search("дрель уд", 0, 10)).containsExactly(1L);
+        assertThat(index.search("ная дре", 0, 10)).containsExactly(2L);
+        assertThat(index.search("дрель мощная", 0, 10)).isEmpty();
+        assertThat(index.search("ударная дрель", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFindByShortKeyword() {
+        assertThat(index.search("д", 0, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("ь ", 0, 10)).containsExactly(1L);
+        assertThat(index.search("ю", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIndexLongWordsByBoundedGrams() {
+        String word = "а".repeat(500) + "б";
+        index.put(4L, word, "", true);
+        assertThat(index.search("аааб", 0, 10)).containsExactly(4L);
+        assertThat(index.search("ааааа", 0, 10)).containsExactly(4L);
+        assertThat(index.search("бааа", 0, 10)).isEmpty();
+        assertThat(index.gramCount()).isLessThan(100);
+    }
+
+    @Test
+    void shouldUpdateIncrementally() {
+        index.indexAfterCommit(Item.builder().id(1L).name("Пила").description("Мощная").available(true).build());
+        index.indexAfterCommit(Item.builder().id(3L).name("Дрель").description("Починена").available(true).build());
+        assertThat(index.search("дрель", 0, 10)).containsExactly(3L, 2L);
+        assertThat(index.search("пила", 0, 10)).containsExactly(1L);
+        index.indexAfterCommit(Item.builder().id(2L).name("Отвертка").description("Аккумуляторная дрель")
+                .available(false).build());
+        assertThat(index.search("дрель", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    void shouldBuildFromRepository() {
+        assertThat(index.isReady()).isFalse();
+        when(itemRepository.findAllAvailableAfterCursor(eq(0L), any())).thenReturn(List.of());
+        index.build();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    void shouldKeepIncrementalUpdateMadeDuringBuild() {
+        ItemView stale = mock(ItemView.class);
+        when(stale.getId()).thenReturn(1L);
+        when(itemRepository.findAllAvailableAfterCursor(eq(0L), any())).thenAnswer(invocation -> {
+            index.indexAfterCommit(Item.builder().id(1L).name("Пила").description("Мощная").available(true).build());
+            return List.of(stale);
+        });
+        index.build();
+        assertThat(index.search("пила", 0, 10)).containsExactly(1L);
+        assertThat(index.search("ударная", 0, 10)).isEmpty();
+    }
+}
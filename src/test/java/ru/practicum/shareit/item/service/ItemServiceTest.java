@@ -8,26 +8,34 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.CommentView;
+import ru.practicum.shareit.item.dto.FreeSlotDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestFeedCache;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.util.CustomPageable;
 
@@ -36,6 +44,8 @@ import java.util.*;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,11 +55,27 @@ public class ItemServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
     private CommentRepository commentRepository;
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     private ItemRequestRepository requestRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private CommentEligibilityCache commentEligibilityCache;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSearchCache itemSearchCache;
+    @Mock
+    private ItemNameSuggestIndex itemNameSuggestIndex;
+    @Mock
+    private ItemRequestFeedCache itemRequestFeedCache;
     @InjectMocks
     private ItemService itemService;
     private Item item;
@@ -70,7 +96,7 @@ public class ItemServiceTest {
 
     @Test
     void shouldCreateItem() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(itemRepository.save(item)).thenReturn(item);
         ItemDto result = itemService.createItem(itemDto, 1L);
         assertThat(result).isNotNull().isEqualTo(itemDto);
@@ -78,10 +104,22 @@ public class ItemServiceTest {
     }
 
     @Test
-    void shouldCreateItemWhenUserNotfound() {
-        when(userRepository.findById(1L)).thenThrow(NotFoundException.class);
+    void shouldCreateItemForDeletedOwner() {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(itemRepository.save(item)).thenThrow(DataIntegrityViolationException.class);
+        when(userRepository.existsById(1L)).thenReturn(false);
         assertThrows(NotFoundException.class, () -> itemService.createItem(itemDto, 1L));
-        verify(userRepository).findById(1L);
+        verify(userExistenceCache).remove(1L);
+        verify(itemSearchIndex, never()).indexAfterCommit(any());
+    }
+
+    @Test
+    void shouldCreateItemWithOtherConstraintViolation() {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(itemRepository.save(item)).thenThrow(DataIntegrityViolationException.class);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        assertThrows(DataIntegrityViolationException.class, () -> itemService.createItem(itemDto, 1L));
+        verify(userExistenceCache, never()).remove(anyLong());
     }
 
     @Test
@@ -90,13 +128,28 @@ public class ItemServiceTest {
                 .requester(user).id(1L).description("test").build();
         itemDto.setRequestId(1L);
         item.setRequest(itemRequest);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(requestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
         when(itemRepository.save(item)).thenReturn(item);
         ItemDto result = itemService.createItem(itemDto, 1L);
         assertThat(result).isNotNull().isEqualTo(itemDto);
         verify(itemRepository).save(item);
         verify(requestRepository).findById(1L);
+        verify(itemRequestFeedCache).invalidateAfterCommit();
+    }
+
+    @Test
+    void shouldKeepFeedCacheWhenItemWithRequestIsNotSaved() {
+        ItemRequest itemRequest = ItemRequest.builder().items(List.of(item)).created(LocalDateTime.now())
+                .requester(user).id(1L).description("test").build();
+        itemDto.setRequestId(1L);
+        item.setRequest(itemRequest);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(requestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
+        when(itemRepository.save(item)).thenThrow(DataIntegrityViolationException.class);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        assertThrows(DataIntegrityViolationException.class, () -> itemService.createItem(itemDto, 1L));
+        verify(itemRequestFeedCache, never()).invalidateAfterCommit();
     }
 
     @Test
@@ -105,7 +158,7 @@ public class ItemServiceTest {
                 .requester(user).id(1L).description("test").build();
         itemDto.setRequestId(1L);
         item.setRequest(itemRequest);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(requestRepository.findById(1L)).thenThrow(NotFoundException.class);
         assertThrows(NotFoundException.class, () -> itemService.createItem(itemDto, 1L));
         verify(requestRepository).findById(1L);
@@ -113,22 +166,24 @@ public class ItemServiceTest {
 
     @Test
     void shouldGetItemByOwner() {
-        Booking last = Booking.builder().id(1L).item(item).booker(user).status(Status.APPROVED).build();
-        Booking next = Booking.builder().id(2L).item(item).booker(user).status(Status.APPROVED).build();
+        Booking last = Booking.builder().id(1L).item(item).booker(user).status(Status.APPROVED)
+                .start(LocalDateTime.now().minusDays(2)).end(LocalDateTime.now().minusDays(1)).build();
+        Booking next = Booking.builder().id(2L).item(item).booker(user).status(Status.APPROVED)
+                .start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2)).build();
         Comment comment = Comment.builder().item(item).author(user).text("test").created(LocalDateTime.now()).build();
-        when(commentRepository.findByItem_IdOrderByCreatedDesc(1L)).thenReturn(Set.of(comment));
+        when(commentRepository.findAllByItemIds(Set.of(1L))).thenReturn(List.of(comment));
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(bookingRepository.getFirstByItem_IdOrderByEndDesc(1L)).thenReturn(next);
-        when(bookingRepository.getFirstByItem_IdOrderByStartAsc(1L)).thenReturn(last);
+        when(bookingRepository.findLastAndNextByItemIds(eq(Set.of(1L)), any(LocalDateTime.class), eq(Status.REJECTED)))
+                .thenReturn(List.of(BookingMapper.toBookingDtoItem(last), BookingMapper.toBookingDtoItem(next)));
         itemDto.setComments(Set.of(CommentMapper.toCommentDto(comment)));
         itemDto.setNextBooking(BookingMapper.toBookingDtoItem(next));
         itemDto.setLastBooking(BookingMapper.toBookingDtoItem(last));
         ItemDto result = itemService.getItemByOwner(1L, 1L);
         assertThat(result).isNotNull().isEqualTo(itemDto);
         verify(itemRepository).findById(1L);
-        verify(commentRepository).findByItem_IdOrderByCreatedDesc(1L);
-        verify(bookingRepository).getFirstByItem_IdOrderByEndDesc(1L);
-        verify(bookingRepository).getFirstByItem_IdOrderByStartAsc(1L);
+        verify(commentRepository).findAllByItemIds(Set.of(1L));
+        verify(bookingRepository).findLastAndNextByItemIds(eq(Set.of(1L)), any(LocalDateTime.class),
+                eq(Status.REJECTED));
     }
 
     @Test
@@ -143,15 +198,26 @@ public class ItemServiceTest {
         try (MockedStatic<CustomPageable> ignored = mockStatic(CustomPageable.class)) {
             Pageable pageable = CustomPageable.of(0, 5);
             when(CustomPageable.of(0, 5)).thenReturn(pageable);
-            when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-            Page<Item> itemPage = new PageImpl<>(Collections.singletonList(item));
-            when(itemRepository.findAllByOwner(user, pageable)).thenReturn(itemPage);
+            when(itemRepository.findAllByOwnerId(1L, pageable)).thenReturn(List.of(toItemView(item)));
             Collection<ItemDto> result = itemService.getUserItems(1L, 0, 5);
             assertThat(result.isEmpty()).isNotNull().isFalse();
-            verify(itemRepository).findAllByOwner(user, pageable);
+            verify(itemRepository).findAllByOwnerId(1L, pageable);
         }
     }
 
+    @Test
+    void shouldGetUsersItemsWithCommentsLimit() {
+        ReflectionTestUtils.setField(itemService, "commentsLimit", 1);
+        Comment newest = Comment.builder().id(2L).item(item).author(user).text("new").created(LocalDateTime.now())
+                .build();
+        Pageable pageable = CustomPageable.of(0, 5);
+        when(itemRepository.findAllByOwnerId(1L, pageable)).thenReturn(List.of(toItemView(item)));
+        when(commentRepository.findLatestByItemIds(Set.of(1L), 1)).thenReturn(List.of(toCommentView(newest)));
+        List<ItemDto> result = new ArrayList<>(itemService.getUserItems(1L, 0, 5));
+        assertThat(result.get(0).getComments()).isEqualTo(Set.of(CommentMapper.toCommentDto(newest)));
+        verify(commentRepository, never()).findAllByItemIds(any());
+    }
+
     @Test
     void shouldUpdateItem() {
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
@@ -175,31 +241,98 @@ public class ItemServiceTest {
 
     @Test
     void shouldSearchItems() {
+        Pageable pageable = CustomPageable.of(0, 5);
         try (MockedStatic<CustomPageable> ignored = mockStatic(CustomPageable.class)) {
-            Pageable pageable = CustomPageable.of(0, 5);
             when(CustomPageable.of(0, 5)).thenReturn(pageable);
-            Page<Item> itemPage = new PageImpl<>(Collections.singletonList(item));
-            when(itemRepository.searchItems("item", pageable)).thenReturn(itemPage);
+            when(itemRepository.searchItems("item", pageable)).thenReturn(List.of(toItemView(item)));
             List<ItemDto> result = new ArrayList<>(itemService.searchItems("item", 0, 5));
             assertThat(result.get(0)).isNotNull().isEqualTo(itemDto);
             verify(itemRepository).searchItems("item", pageable);
         }
     }
 
+    @Test
+    void shouldSearchItemsWithFullText() {
+        ReflectionTestUtils.setField(itemService, "searchMode", "fulltext");
+        Pageable pageable = CustomPageable.of(0, 5);
+        try (MockedStatic<CustomPageable> ignored = mockStatic(CustomPageable.class)) {
+            when(CustomPageable.of(0, 5)).thenReturn(pageable);
+            when(itemRepository.searchItemsFullText("item", pageable)).thenReturn(List.of(toItemView(item)));
+            List<ItemDto> result = new ArrayList<>(itemService.searchItems("item", 0, 5));
+            assertThat(result.get(0)).isNotNull().isEqualTo(itemDto);
+            verify(itemRepository, never()).searchItems(any(), any());
+        }
+    }
+
+    @Test
+    void shouldSearchItemsInIndex() {
+        when(itemSearchIndex.isReady()).thenReturn(true);
+        when(itemSearchIndex.search("item", 0, 5)).thenReturn(List.of(1L));
+        when(itemRepository.findAllViewsByIdIn(List.of(1L))).thenReturn(List.of(toItemView(item)));
+        List<ItemDto> result = new ArrayList<>(itemService.searchItems("item", 0, 5));
+        assertThat(result.get(0)).isNotNull().isEqualTo(itemDto);
+        verify(itemRepository, never()).searchItems(any(), any());
+    }
+
+    @Test
+    void shouldReturnCachedSearchResult() {
+        when(itemSearchCache.get("item", 0, 5)).thenReturn(Optional.of(List.of(itemDto)));
+        List<ItemDto> result = new ArrayList<>(itemService.searchItems("item", 0, 5));
+        assertThat(result.get(0)).isEqualTo(itemDto);
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void shouldSuggestItemNamesWithDefaultSize() {
+        when(itemNameSuggestIndex.suggest("it", 10)).thenReturn(List.of("item"));
+        assertThat(itemService.suggestItemNames("it", null)).isEqualTo(List.of("item"));
+    }
+
+    @Test
+    void shouldGetAvailability() {
+        item.setAvailable(true);
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+        busy.put(from.minusDays(1), from.plusDays(1));
+        busy.put(from.plusDays(3), from.plusDays(4));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.getIntervals(1L, from, to)).thenReturn(busy);
+        List<FreeSlotDto> result = new ArrayList<>(itemService.getAvailability(1L, from, to));
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(0)).isEqualTo(FreeSlotDto.builder().start(from.plusDays(1)).end(from.plusDays(3)).build());
+        assertThat(result.get(1)).isEqualTo(FreeSlotDto.builder().start(from.plusDays(4)).end(to).build());
+    }
+
+    @Test
+    void shouldGetAvailabilityIfItemNotAvailable() {
+        item.setAvailable(false);
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        assertThat(itemService.getAvailability(1L, from, from.plusDays(1)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldGetAvailabilityIfPeriodIncorrect() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        assertThrows(BadRequestException.class, () -> itemService.getAvailability(1L, from, from.minusDays(1)));
+    }
+
     @Test
     void shouldCreateComment() {
         try (MockedStatic<LocalDateTime> ignored = mockStatic(LocalDateTime.class)) {
             Comment comment = Comment.builder().id(1L).text("text").author(user).item(item).build();
             CommentDto commentDto = CommentMapper.toCommentDto(comment);
-            when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-            when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+            when(itemRepository.getReferenceById(1L)).thenReturn(item);
+            when(userRepository.getReferenceById(1L)).thenReturn(user);
             LocalDateTime dateTime = LocalDateTime.now();
             when(LocalDateTime.now()).thenReturn(dateTime);
-            when(bookingRepository.existsAllByBooker_IdAndEndBefore(1L, dateTime)).thenReturn(true);
+            when(bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(1L, 1L, Status.APPROVED, dateTime)).thenReturn(true);
             when(commentRepository.save(Mockito.any())).thenReturn(comment);
             CommentDto result = itemService.createComment(commentDto, 1L, 1L);
             assertThat(result).isNotNull().isEqualTo(commentDto);
             verify(commentRepository).save(Mockito.any());
+            verify(commentEligibilityCache).add(1L, 1L);
         }
     }
 
@@ -220,9 +353,43 @@ public class ItemServiceTest {
             CommentDto commentDto = CommentMapper.toCommentDto(comment);
             LocalDateTime dateTime = LocalDateTime.now();
             when(LocalDateTime.now()).thenReturn(dateTime);
-            when(bookingRepository.existsAllByBooker_IdAndEndBefore(1L, dateTime)).thenReturn(false);
+            when(bookingRepository.existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(1L, 1L, Status.APPROVED, dateTime)).thenReturn(false);
             assertThrows(BadRequestException.class, () -> itemService.createComment(commentDto, 1L, 1L));
-            verify(bookingRepository).existsAllByBooker_IdAndEndBefore(1L, dateTime);
+            verify(bookingRepository).existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(1L, 1L, Status.APPROVED, dateTime);
+            verify(commentEligibilityCache, never()).add(any(), any());
         }
     }
+
+    @Test
+    void shouldCreateCommentWithCachedEligibility() {
+        Comment comment = Comment.builder().id(1L).text("text").author(user).item(item).build();
+        CommentDto commentDto = CommentMapper.toCommentDto(comment);
+        when(commentEligibilityCache.contains(1L, 1L)).thenReturn(true);
+        when(itemRepository.getReferenceById(1L)).thenReturn(item);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(commentRepository.save(Mockito.any())).thenReturn(comment);
+        assertThat(itemService.createComment(commentDto, 1L, 1L)).isEqualTo(commentDto);
+        verify(bookingRepository, never()).existsAllByBooker_IdAndItem_IdAndStatusAndEndBefore(any(), any(), any(), any());
+        verify(itemRepository, never()).findById(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    private ItemView toItemView(Item item) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", item.getId());
+        values.put("name", item.getName());
+        values.put("description", item.getDescription());
+        values.put("available", item.getAvailable());
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemView.class, values);
+    }
+
+    private CommentView toCommentView(Comment comment) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", comment.getId());
+        values.put("text", comment.getText());
+        values.put("authorName", comment.getAuthor().getName());
+        values.put("created", comment.getCreated());
+        values.put("itemId", comment.getItem().getId());
+        return new SpelAwareProxyProjectionFactory().createProjection(CommentView.class, values);
+    }
 }
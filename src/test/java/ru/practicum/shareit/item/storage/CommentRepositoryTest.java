@@ -4,14 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.dto.CommentView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -35,24 +35,45 @@ public class CommentRepositoryTest {
                 .owner(user)
                 .name("item")
                 .description("test")
+                .available(true)
                 .build();
         item = itemRepository.save(item);
-        comment = Comment.builder().text("text").author(user).item(item).build();
+        comment = Comment.builder().text("text").author(user).item(item).created(LocalDateTime.now()).build();
         comment = commentRepository.save(comment);
     }
 
     @Test
     void shouldFindCommentByItemId() {
-        List<Comment> result = commentRepository.findByItem_IdOrderByCreatedDesc(item.getId())
-                .stream().collect(Collectors.toList());
+        List<Comment> result = commentRepository.findAllByItemIds(List.of(item.getId()));
         assertThat(result).isNotNull();
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(comment);
     }
 
+    @Test
+    void shouldFindLatestCommentsPerItem() {
+        User author = comment.getAuthor();
+        Comment newest = commentRepository.save(Comment.builder().text("newest").author(author).item(item)
+                .created(comment.getCreated().plusHours(2)).build());
+        Comment newer = commentRepository.save(Comment.builder().text("newer").author(author).item(item)
+                .created(comment.getCreated().plusHours(1)).build());
+        Item other = itemRepository.save(Item.builder().owner(author).name("other").description("other")
+                .available(true).build());
+        Comment otherComment = commentRepository.save(Comment.builder().text("other").author(author).item(other)
+                .created(comment.getCreated()).build());
+        List<CommentView> result = commentRepository.findLatestByItemIds(List.of(item.getId(), other.getId()), 2);
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.get(0).getId()).isEqualTo(newest.getId());
+        assertThat(result.get(0).getAuthorName()).isEqualTo(author.getName());
+        assertThat(result.get(0).getItemId()).isEqualTo(item.getId());
+        assertThat(result.get(1).getId()).isEqualTo(newer.getId());
+        assertThat(result.get(2).getId()).isEqualTo(otherComment.getId());
+        assertThat(result.get(2).getCreated()).isNotNull();
+    }
+
     @Test
     void shouldFindCommentByIncorrectId() {
-        Set<Comment> result = commentRepository.findByItem_IdOrderByCreatedDesc(404L);
+        List<Comment> result = commentRepository.findAllByItemIds(List.of(404L));
         assertThat(result.isEmpty()).isTrue();
     }
 }
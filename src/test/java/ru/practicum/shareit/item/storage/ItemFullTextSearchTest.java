@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.util.CustomPageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.SqlCapture.capture;
+
+@Tag("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${shareit.test.postgres.url:jdbc:postgresql://localhost:5432/shareit}",
+        "spring.datasource.username=${shareit.test.postgres.username:shareit}",
+        "spring.datasource.password=${shareit.test.postgres.password:shareit}",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQL10Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.SqlCapture",
+        "shareit.migration.locations=db/migration,db/migration/postgresql"})
+public class ItemFullTextSearchTest {
+    private static final String KEYWORD = "drill";
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemRepository itemRepository;
+    private Long nameMatch;
+    private Long descriptionMatch;
+    private Long substringMatch;
+    private Long unavailable;
+
+    @BeforeEach
+    void seed() {
+        Long ownerId = jdbcTemplate.queryForObject("insert into users (name, email) values ('owner', ?) returning id",
+                Long.class, "search-owner-" + System.nanoTime() + "@test.ru");
+        nameMatch = insertItem(ownerId, "Drill", "Impact", true);
+        descriptionMatch = insertItem(ownerId, "Hammer", "Works better than a drill", true);
+        substringMatch = insertItem(ownerId, "Drillmaster", "Mini", true);
+        unavailable = insertItem(ownerId, "Drill", "Broken", false);
+    }
+
+    @Test
+    void shouldRankWordMatchesBeforeSubstringMatchesAndNameBeforeDescription() {
+        List<Long> seeded = List.of(nameMatch, descriptionMatch, substringMatch, unavailable);
+        List<Long> found = itemRepository.searchItemsFullText(KEYWORD, CustomPageable.of(0, 50)).stream()
+                .map(ItemView::getId)
+                .filter(seeded::contains)
+                .collect(Collectors.toList());
+        assertThat(found).containsExactly(nameMatch, descriptionMatch, substringMatch);
+    }
+
+    @Test
+    void shouldUsePartialSearchIndexes() {
+        String sql = capture(() -> itemRepository.searchItemsFullText(KEYWORD, CustomPageable.of(0, 5)));
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < sql.chars().filter(c -> c == '?').count() - 1; i++) {
+            parameters.add(KEYWORD);
+        }
+        parameters.add(5);
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class,
+                parameters.toArray()));
+        assertThat(plan).contains("idx_items_search_vector").contains("idx_items_name_trgm")
+                .contains("idx_items_description_trgm");
+    }
+
+    private Long insertItem(Long ownerId, String name, String description, boolean available) {
+        return jdbcTemplate.queryForObject("insert into items (name, description, owner_id, available)" +
+                " values (?, ?, ?, ?) returning id", Long.class, name, description, ownerId, available);
+    }
+}
@@ -4,13 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -32,31 +32,64 @@ public class ItemRepositoryTest {
                 .owner(user)
                 .name("item")
                 .description("test")
+                .available(true)
                 .build();
         item = itemRepository.save(item);
     }
 
     @Test
     void shouldFindItem() {
-        List<Item> result = itemRepository.searchItems("item", CustomPageable.of(0, 5))
-                .stream().collect(Collectors.toList());
+        List<ItemView> result = itemRepository.searchItems("item", CustomPageable.of(0, 5));
         assertThat(result).isNotNull();
         assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(item);
+        assertThat(result.get(0).getId()).isEqualTo(item.getId());
+        assertThat(result.get(0).getName()).isEqualTo(item.getName());
     }
 
     @Test
     void shouldFindItemWithWrongText() {
-        List<Item> result = itemRepository.searchItems("abc", CustomPageable.of(0, 5))
-                .stream().collect(Collectors.toList());
+        List<ItemView> result = itemRepository.searchItems("abc", CustomPageable.of(0, 5));
         assertThat(result.isEmpty()).isTrue();
     }
 
+    @Test
+    void shouldNotFindUnavailableItemByName() {
+        itemRepository.save(Item.builder().owner(user).name("item hidden").description("test").available(false).build());
+        List<ItemView> result = itemRepository.searchItems("item", CustomPageable.of(0, 5));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(item.getId());
+    }
+
+    @Test
+    void shouldRankNameMatchesFirst() {
+        Item byName = itemRepository.save(Item.builder().owner(user).name("test").description("desc")
+                .available(true).build());
+        List<ItemView> result = itemRepository.searchItems("test", CustomPageable.of(0, 5));
+        assertThat(result.size()).isEqualTo(2);
+        assertThat(result.get(0).getId()).isEqualTo(byName.getId());
+        assertThat(result.get(1).getId()).isEqualTo(item.getId());
+    }
+
+    @Test
+    void shouldFindAllWithOwnerByIdIn() {
+        List<Item> result = itemRepository.findAllWithOwnerByIdIn(List.of(item.getId(), 404L));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getOwner().getId()).isEqualTo(user.getId());
+    }
+
     @Test
     void shouldFindAllByOwner() {
-        List<Item> result = itemRepository.findAllByOwner(user, CustomPageable.of(0, 5))
-                .stream().collect(Collectors.toList());
+        List<ItemView> result = itemRepository.findAllByOwnerId(user.getId(), CustomPageable.of(0, 5));
         assertThat(result).isNotNull();
-        assertThat(result.get(0)).isEqualTo(item);
+        assertThat(result.get(0).getId()).isEqualTo(item.getId());
+        assertThat(result.get(0).getDescription()).isEqualTo(item.getDescription());
+    }
+
+    @Test
+    void shouldFindAllByOwnerIdAfterCursor() {
+        List<ItemView> result = itemRepository.findAllByOwnerIdAfterCursor(user.getId(), 0L, CustomPageable.of(0, 5));
+        assertThat(result.get(0).getId()).isEqualTo(item.getId());
+        result = itemRepository.findAllByOwnerIdAfterCursor(user.getId(), item.getId(), CustomPageable.of(0, 5));
+        assertThat(result.isEmpty()).isTrue();
     }
 }
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.migration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SchemaMigratorTest {
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("db/baseline/schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void shouldUpgradeBaselineSchemaWithExistingBookings() {
+        jdbcTemplate.update("insert into users (id, name, email) values (1, 'owner', 'owner@test.ru')," +
+                " (2, 'booker', 'booker@test.ru')");
+        jdbcTemplate.update("insert into items (id, name, description, owner_id, available)" +
+                " values (1, 'Дрель', 'test', 1, true)");
+        jdbcTemplate.update("insert into bookings (start_time, end_time, item_id, booker_id, status)" +
+                " values (now(), now(), 1, 2, 'APPROVED')");
+        SchemaMigrator migrator = new SchemaMigrator(database, List.of("db/migration"));
+
+        int applied = migrator.migrate();
+
+        assertThat(applied).isPositive();
+        assertThat(jdbcTemplate.queryForObject("select owner_id from bookings", Long.class)).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from bookings_archive", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from schema_version", Integer.class))
+                .isEqualTo(applied);
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("insert into bookings" +
+                " (start_time, end_time, item_id, booker_id, status) values (now(), now(), 1, 2, 'WAITING')"));
+    }
+
+    @Test
+    void shouldApplyEachVersionOnlyOnce() {
+        SchemaMigrator migrator = new SchemaMigrator(database, List.of("db/migration"));
+        assertThat(migrator.migrate()).isPositive();
+        assertThat(migrator.migrate()).isZero();
+    }
+
+    @Test
+    void shouldRejectScriptChangedAfterApplying() {
+        SchemaMigrator migrator = new SchemaMigrator(database, List.of("db/migration"));
+        migrator.migrate();
+        jdbcTemplate.update("update schema_version set checksum = checksum + 1 where version = 2");
+        IllegalStateException e = assertThrows(IllegalStateException.class, migrator::migrate);
+        assertThat(e.getMessage()).contains("V2__add_bookings_owner.sql");
+    }
+
+    @Test
+    void shouldRunDollarQuotedScriptAsOneStatement() {
+        assertThat(new SchemaMigrator(database, List.of("db/dollar")).migrate()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select text from notes", String.class)).isEqualTo("a;b");
+    }
+
+    @Test
+    void shouldApplyEachVersionOnceWhenInstancesStartTogether() throws Exception {
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 10000");
+        Callable<Integer> migration = () -> new SchemaMigrator(database, List.of("db/migration")).migrate();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(migration);
+            Future<Integer> second = executor.submit(migration);
+            int applied = first.get() + second.get();
+            assertThat(applied).isPositive();
+            assertThat(jdbcTemplate.queryForObject("select count(*) from schema_version", Integer.class))
+                    .isEqualTo(applied);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
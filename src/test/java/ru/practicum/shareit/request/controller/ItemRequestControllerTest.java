@@ -14,6 +14,7 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.util.Collections;
@@ -21,6 +22,9 @@ import java.util.Objects;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -32,6 +36,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class ItemRequestControllerTest {
     @MockBean
     private ItemRequestService itemRequestService;
+    @MockBean
+    private UserService userService;
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
@@ -73,6 +79,22 @@ public class ItemRequestControllerTest {
         verify(itemRequestService).createItemRequest(itemRequestDto, 1L);
     }
 
+    @Test
+    void shouldRejectUnknownCaller() throws Exception {
+        doThrow(new NotFoundException("Пользователь с id 9 не найден")).when(userService).checkUserExists(9L);
+        mockMvc.perform(get(url)
+                        .header(header, 9))
+                .andExpect(status().isNotFound());
+        verify(itemRequestService, never()).getByUser(anyLong());
+    }
+
+    @Test
+    void shouldRejectMissingCallerHeader() throws Exception {
+        mockMvc.perform(get(url))
+                .andExpect(status().isBadRequest());
+        verify(itemRequestService, never()).getByUser(anyLong());
+    }
+
     @Test
     void shouldGetItemRequestById() throws Exception {
         when(itemRequestService.getItemRequest(1L, 1L)).thenReturn(itemRequestDto);
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemRequestFeedCacheTest {
+    private final ItemRequestDto newest = request(3L);
+    private final ItemRequestDto middle = request(2L);
+    private final ItemRequestDto oldest = request(1L);
+
+    @Test
+    void shouldServePagesWithoutCallersOwnRequests() {
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(10, 60000);
+        cache.load(cache.getGeneration(), List.of(1L, 2L, 1L), List.of(newest, middle, oldest));
+        assertThat(cache.get(1L, 0, 5)).contains(List.of(middle));
+        assertThat(cache.get(2L, 0, 1)).contains(List.of(newest));
+        assertThat(cache.get(2L, 1, 5)).contains(List.of(oldest));
+        assertThat(cache.getHits()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldMissWhenPageIsBeyondIncompleteRing() {
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(2, 60000);
+        cache.load(cache.getGeneration(), List.of(1L, 1L), List.of(newest, middle));
+        assertThat(cache.get(2L, 0, 2)).contains(List.of(newest, middle));
+        assertThat(cache.get(2L, 1, 2)).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getStats()).isEqualTo("лента запросов: попаданий 1, промахов 1, перезагрузок 1");
+    }
+
+    @Test
+    void shouldPushNewRequestsAndDropOldest() {
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(2, 60000);
+        cache.load(cache.getGeneration(), List.of(1L), List.of(oldest));
+        cache.addAfterCommit(1L, middle);
+        cache.addAfterCommit(1L, newest);
+        assertThat(cache.get(2L, 0, 2)).contains(List.of(newest, middle));
+        assertThat(cache.get(2L, 0, 3)).isEmpty();
+    }
+
+    @Test
+    void shouldBeStaleWhenExpiredOrInvalidated() {
+        ItemRequestFeedCache expiring = new ItemRequestFeedCache(10, -1);
+        expiring.load(expiring.getGeneration(), List.of(1L), List.of(oldest));
+        assertThat(expiring.isStale()).isTrue();
+        assertThat(expiring.get(2L, 0, 5)).isEmpty();
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(10, 60000);
+        cache.load(cache.getGeneration(), List.of(1L), List.of(oldest));
+        assertThat(cache.isStale()).isFalse();
+        cache.invalidateAfterCommit();
+        assertThat(cache.isStale()).isTrue();
+    }
+
+    @Test
+    void shouldNotLoadSnapshotTakenBeforeNewRequest() {
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(10, 60000);
+        long generation = cache.getGeneration();
+        cache.addAfterCommit(1L, newest);
+        cache.load(generation, List.of(1L), List.of(oldest));
+        assertThat(cache.isStale()).isTrue();
+        assertThat(cache.getReloads()).isZero();
+    }
+
+    @Test
+    void shouldBeDisabledWithZeroCapacity() {
+        ItemRequestFeedCache cache = new ItemRequestFeedCache(0, 60000);
+        cache.load(cache.getGeneration(), new ArrayList<>(), new ArrayList<>());
+        cache.addAfterCommit(1L, newest);
+        assertThat(cache.isStale()).isFalse();
+        assertThat(cache.get(2L, 0, 5)).isEmpty();
+    }
+
+    private ItemRequestDto request(Long id) {
+        return ItemRequestDto.builder().id(id).description("request " + id).created(LocalDateTime.now())
+                .items(new ArrayList<>()).build();
+    }
+}
@@ -5,25 +5,32 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedView;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.util.CustomPageable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -36,7 +43,13 @@ public class ItemRequestServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private ItemRequestFeedCache feedCache;
     @InjectMocks
     private ItemRequestService itemRequestService;
     private User user;
@@ -53,43 +66,43 @@ public class ItemRequestServiceTest {
 
     @Test
     void shouldCreateItemRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(anyLong())).thenReturn(user);
         when(itemRequestRepository.save(any())).thenReturn(itemRequest);
         ItemRequestDto result = itemRequestService.createItemRequest(itemRequestDto, anyLong());
         assertThat(result).isNotNull();
         assertThat(result).isEqualTo(itemRequestDto);
         verify(itemRequestRepository).save(any());
+        verify(feedCache).addAfterCommit(0L, result);
     }
 
     @Test
-    void shouldCreateItemRequestWithIncorrectId() {
-        when(userRepository.findById(anyLong())).thenThrow(NotFoundException.class);
-        assertThrows(NotFoundException.class, () -> itemRequestService.createItemRequest(itemRequestDto, anyLong()));
-        verify(userRepository).findById(anyLong());
+    void shouldCreateItemRequestForDeletedUser() {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(itemRequestRepository.save(any())).thenThrow(DataIntegrityViolationException.class);
+        when(userRepository.existsById(1L)).thenReturn(false);
+        assertThrows(NotFoundException.class, () -> itemRequestService.createItemRequest(itemRequestDto, 1L));
+        verify(userExistenceCache).remove(1L);
+        verify(feedCache, never()).addAfterCommit(anyLong(), any());
     }
 
     @Test
     void shouldGetItemRequest() {
-        itemRequest.setItems(null);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
+        when(itemRequestRepository.findViewById(1L)).thenReturn(Optional.of(toItemRequestView(itemRequest)));
         ItemRequestDto result = itemRequestService.getItemRequest(1L, anyLong());
         assertThat(result).isNotNull().isEqualTo(itemRequestDto);
-        verify(itemRequestRepository).findById(1L);
+        verify(itemRequestRepository).findViewById(1L);
     }
 
     @Test
     void shouldGetItemRequestWithIncorrectId() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findById(1L)).thenThrow(NotFoundException.class);
+        when(itemRequestRepository.findViewById(1L)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> itemRequestService.getItemRequest(1L, anyLong()));
-        verify(itemRequestRepository).findById(1L);
+        verify(itemRequestRepository).findViewById(1L);
     }
 
     @Test
     void shouldGetByUserId() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findAllByRequesterId(1L)).thenReturn(List.of(itemRequest));
+        when(itemRequestRepository.findAllByRequesterId(1L)).thenReturn(List.of(toItemRequestView(itemRequest)));
         List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getByUser(1L));
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.get(0)).isEqualTo(itemRequestDto);
@@ -97,33 +110,69 @@ public class ItemRequestServiceTest {
     }
 
     @Test
-    void shouldGetByIncorrectUserId() {
-        when(userRepository.findById(anyLong())).thenThrow(NotFoundException.class);
-        assertThrows(NotFoundException.class, () -> itemRequestService.getByUser(anyLong()));
-        verify(userRepository).findById(anyLong());
+    void shouldGetAllByUserId() {
+        Pageable pageable = CustomPageable.of(0, 5);
+        when(itemRequestRepository.findAllByRequesterIdIsNot(1L, pageable))
+                .thenReturn(List.of(toItemRequestView(itemRequest)));
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(1L, pageable));
+        assertThat(result.isEmpty()).isFalse();
+        assertThat(result.get(0)).isEqualTo(itemRequestDto);
+        verify(itemRequestRepository).findAllByRequesterIdIsNot(1L, pageable);
     }
 
     @Test
-    void shouldGetAllByUserId() {
-        try (MockedStatic<CustomPageable> ignored = mockStatic(CustomPageable.class)) {
-            Pageable pageable = CustomPageable.of(0, 5);
-            when(CustomPageable.of(0, 5)).thenReturn(pageable);
-            Page<ItemRequest> itemPage = new PageImpl<>(Collections.singletonList(itemRequest));
-            when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-            when(itemRequestRepository.findAllByRequesterIdIsNot(1L, pageable)).thenReturn(itemPage);
-            List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(1L,
-                    CustomPageable.of(0, 5)));
-            assertThat(result.isEmpty()).isFalse();
-            assertThat(result.get(0)).isEqualTo(itemRequestDto);
-            verify(itemRequestRepository).findAllByRequesterIdIsNot(1L, pageable);
-        }
+    void shouldGetAllByUserIdFromFeedCache() {
+        Pageable pageable = CustomPageable.of(0, 5);
+        when(feedCache.get(1L, 0, 5)).thenReturn(Optional.of(List.of(itemRequestDto)));
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(1L, pageable));
+        assertThat(result.get(0)).isEqualTo(itemRequestDto);
+        verifyNoInteractions(itemRequestRepository, itemRepository);
     }
 
     @Test
-    void shouldGetAllWithIncorrectId() {
-        when(userRepository.findById(anyLong())).thenThrow(NotFoundException.class);
-        assertThrows(NotFoundException.class, () -> itemRequestService.getAllByUserId(anyLong(),
-                CustomPageable.of(0, 5)));
-        verify(userRepository).findById(anyLong());
+    void shouldReloadStaleFeedCache() {
+        Pageable pageable = CustomPageable.of(0, 5);
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", itemRequest.getId());
+        values.put("description", itemRequest.getDescription());
+        values.put("created", itemRequest.getCreated());
+        values.put("requesterId", 2L);
+        ItemRequestFeedView view = new SpelAwareProxyProjectionFactory()
+                .createProjection(ItemRequestFeedView.class, values);
+        when(feedCache.get(1L, 0, 5)).thenReturn(Optional.empty(), Optional.of(List.of(itemRequestDto)));
+        when(feedCache.isStale()).thenReturn(true);
+        when(feedCache.getGeneration()).thenReturn(7L);
+        when(feedCache.getCapacity()).thenReturn(200);
+        when(itemRequestRepository.findNewest(CustomPageable.of(0, 200))).thenReturn(List.of(view));
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(1L, pageable));
+        assertThat(result.get(0)).isEqualTo(itemRequestDto);
+        verify(feedCache).load(7L, List.of(2L), List.of(itemRequestDto));
+        verify(itemRequestRepository, never()).findAllByRequesterIdIsNot(anyLong(), any());
+    }
+
+    @Test
+    void shouldGetByUserIdWithItems() {
+        Item item = Item.builder().id(5L).name("item").description("test").available(true).request(itemRequest)
+                .build();
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", item.getId());
+        values.put("name", item.getName());
+        values.put("description", item.getDescription());
+        values.put("available", item.getAvailable());
+        values.put("requestId", itemRequest.getId());
+        ItemView itemView = new SpelAwareProxyProjectionFactory().createProjection(ItemView.class, values);
+        when(itemRequestRepository.findAllByRequesterId(1L)).thenReturn(List.of(toItemRequestView(itemRequest)));
+        when(itemRepository.findAllByRequestIds(Set.of(1L))).thenReturn(List.of(itemView));
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getByUser(1L));
+        assertThat(result.get(0).getItems()).isEqualTo(List.of(ItemRequestMapper.toRequestItemDto(itemView)));
+        verify(itemRepository).findAllByRequestIds(Set.of(1L));
+    }
+
+    private ItemRequestView toItemRequestView(ItemRequest itemRequest) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", itemRequest.getId());
+        values.put("description", itemRequest.getDescription());
+        values.put("created", itemRequest.getCreated());
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemRequestView.class, values);
     }
 }
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.request.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.util.CustomPageable;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.request.feed-cache.capacity=0"})
+@Transactional
+public class ItemRequestStatementCountTest {
+    private static final int REQUESTS = 50;
+    private static final int ITEMS_PER_REQUEST = 3;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Long ownerId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        ownerId = insertUser("statements-owner@test.ru");
+        Long requesterId = insertUser("statements-requester@test.ru");
+        List<Object[]> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(new Object[]{"request " + i, requesterId});
+        }
+        jdbcTemplate.batchUpdate("insert into requests (description, requester_id) values (?, ?)", requests);
+        List<Object[]> items = new ArrayList<>();
+        for (Long requestId : jdbcTemplate.queryForList("select id from requests where requester_id = ?",
+                Long.class, requesterId)) {
+            for (int i = 0; i < ITEMS_PER_REQUEST; i++) {
+                items.add(new Object[]{"item " + i, "test", ownerId, true, requestId});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into items (name, description, owner_id, available, request_id)" +
+                " values (?, ?, ?, ?, ?)", items);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldLoadRequestsPageWithConstantNumberOfStatements() {
+        long smallPageStatements = countStatements(5);
+        long largePageStatements = countStatements(REQUESTS);
+        assertThat(smallPageStatements).isEqualTo(2);
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+    }
+
+    @Test
+    void shouldLoadRequestItemsIntoLightweightDto() {
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(ownerId,
+                CustomPageable.of(0, REQUESTS)));
+        assertThat(result).hasSize(REQUESTS);
+        assertThat(result).allSatisfy(request -> assertThat(request.getItems()).hasSize(ITEMS_PER_REQUEST)
+                .allSatisfy(item -> assertThat(item.getRequestId()).isEqualTo(request.getId())));
+    }
+
+    private long countStatements(int size) {
+        statistics.clear();
+        List<ItemRequestDto> result = new ArrayList<>(itemRequestService.getAllByUserId(ownerId,
+                CustomPageable.of(0, size)));
+        assertThat(result).hasSize(size);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", "user", email);
+        return jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, email);
+    }
+}
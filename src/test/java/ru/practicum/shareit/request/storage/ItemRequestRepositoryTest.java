@@ -4,6 +4,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.request.dto.ItemRequestFeedView;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
@@ -12,7 +15,6 @@ import ru.practicum.shareit.util.CustomPageable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -22,6 +24,8 @@ public class ItemRequestRepositoryTest {
     private ItemRequestRepository itemRequestRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
     private User user;
     private ItemRequest itemRequest;
 
@@ -41,32 +45,92 @@ public class ItemRequestRepositoryTest {
 
     @Test
     void shouldFindAllByRequesterId() {
-        List<ItemRequest> result = itemRequestRepository.findAllByRequesterId(user.getId());
+        List<ItemRequestView> result = itemRequestRepository.findAllByRequesterId(user.getId());
         assertThat(result).isNotNull();
-        assertThat(result.get(0)).isEqualTo(itemRequest);
+        assertThat(result.get(0).getId()).isEqualTo(itemRequest.getId());
+    }
+
+    @Test
+    void shouldFindViewById() {
+        ItemRequestView result = itemRequestRepository.findViewById(itemRequest.getId()).orElseThrow();
+        assertThat(result.getId()).isEqualTo(itemRequest.getId());
+        assertThat(result.getDescription()).isEqualTo("test");
+        assertThat(itemRequestRepository.findViewById(404L).isPresent()).isFalse();
+    }
+
+    @Test
+    void shouldKeepCreatedAsStored() {
+        assertThat(itemRequestRepository.findViewById(itemRequest.getId()).orElseThrow().getCreated())
+                .isEqualTo(itemRequest.getCreated());
     }
 
     @Test
     void shouldFindAllByIncorrectRequesterId() {
-        List<ItemRequest> result = itemRequestRepository.findAllByRequesterId(404L);
+        List<ItemRequestView> result = itemRequestRepository.findAllByRequesterId(404L);
         assertThat(result).isNotNull();
         assertThat(result.isEmpty()).isTrue();
     }
 
     @Test
     void shouldFindAllByRequesterIdIsNot() {
-        List<ItemRequest> result = itemRequestRepository.findAllByRequesterIdIsNot(40L,
-                CustomPageable.of(0, 5)).stream().collect(Collectors.toList());
+        List<ItemRequestView> result = itemRequestRepository.findAllByRequesterIdIsNot(40L,
+                CustomPageable.of(0, 5));
         assertThat(result).isNotNull();
         assertThat(result.isEmpty()).isFalse();
-        assertThat(result.get(0)).isEqualTo(itemRequest);
+        assertThat(result.get(0).getId()).isEqualTo(itemRequest.getId());
+    }
+
+    @Test
+    void shouldFindNewestOrderedByCreatedDesc() {
+        ItemRequest older = itemRequestRepository.save(ItemRequest.builder()
+                .requester(user)
+                .description("older")
+                .created(itemRequest.getCreated().minusMinutes(1))
+                .build());
+        ItemRequest newer = itemRequestRepository.save(ItemRequest.builder()
+                .requester(user)
+                .description("newer")
+                .created(itemRequest.getCreated().plusMinutes(1))
+                .build());
+        ItemRequest sameTime = itemRequestRepository.save(ItemRequest.builder()
+                .requester(user)
+                .description("same time")
+                .created(itemRequest.getCreated())
+                .build());
+        List<ItemRequestFeedView> result = itemRequestRepository.findNewest(CustomPageable.of(0, 5));
+        assertThat(result.size()).isEqualTo(4);
+        assertThat(result.get(0).getId()).isEqualTo(newer.getId());
+        assertThat(result.get(0).getRequesterId()).isEqualTo(user.getId());
+        assertThat(result.get(1).getId()).isEqualTo(sameTime.getId());
+        assertThat(result.get(2).getId()).isEqualTo(itemRequest.getId());
+        assertThat(result.get(3).getId()).isEqualTo(older.getId());
+        List<ItemRequestView> feed = itemRequestRepository.findAllByRequesterIdIsNot(40L, CustomPageable.of(0, 5));
+        assertThat(feed.get(0).getId()).isEqualTo(newer.getId());
+        assertThat(feed.get(1).getId()).isEqualTo(sameTime.getId());
+        assertThat(feed.get(2).getId()).isEqualTo(itemRequest.getId());
+        assertThat(feed.get(3).getId()).isEqualTo(older.getId());
     }
 
     @Test
     void shouldFindAllByIncorrectRequesterIdIsNot() {
-        List<ItemRequest> result = itemRequestRepository.findAllByRequesterIdIsNot(user.getId(),
-                CustomPageable.of(0, 5)).stream().collect(Collectors.toList());
+        List<ItemRequestView> result = itemRequestRepository.findAllByRequesterIdIsNot(user.getId(),
+                CustomPageable.of(0, 5));
         assertThat(result).isNotNull();
         assertThat(result.isEmpty()).isTrue();
     }
+
+    @Test
+    void shouldFindAllByRequesterIdIsNotAfterCursor() {
+        List<ItemRequestView> result = itemRequestRepository.findAllByRequesterIdIsNotAfterCursor(40L,
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, CustomPageable.of(0, 5));
+        assertThat(result.get(0).getId()).isEqualTo(itemRequest.getId());
+        entityManager.clear();
+        LocalDateTime created = itemRequestRepository.findById(itemRequest.getId()).orElseThrow().getCreated();
+        result = itemRequestRepository.findAllByRequesterIdIsNotAfterCursor(40L,
+                created, itemRequest.getId(), CustomPageable.of(0, 5));
+        assertThat(result.isEmpty()).isTrue();
+        result = itemRequestRepository.findAllByRequesterIdIsNotAfterCursor(40L,
+                created, itemRequest.getId() + 1, CustomPageable.of(0, 5));
+        assertThat(result.get(0).getId()).isEqualTo(itemRequest.getId());
+    }
 }
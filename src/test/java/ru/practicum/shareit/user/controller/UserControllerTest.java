@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.context.WebApplicationContext;
@@ -20,14 +21,19 @@ import ru.practicum.shareit.user.service.UserService;
 
 import java.util.Collections;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -97,12 +103,34 @@ public class UserControllerTest {
 
     @Test
     void shouldGetAllUsers() throws Exception {
-        when(userService.getAllUsers()).thenReturn(Collections.singleton(userDto));
+        when(userService.getAllUsers(0, 5)).thenReturn(Collections.singleton(userDto));
         mockMvc.perform(get("/users/")
+                        .param("from", "0")
+                        .param("size", "5")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(1)));
-        verify(userService).getAllUsers();
+        verify(userService).getAllUsers(0, 5);
+    }
+
+    @Test
+    void shouldStreamAllUsers() throws Exception {
+        UserDto other = UserDto.builder().id(2L).name("other").email("other@test.ru").build();
+        doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            consumer.accept(userDto);
+            consumer.accept(other);
+            return null;
+        }).when(userService).streamAllUsers(any());
+        MvcResult result = mockMvc.perform(get("/users/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout(), is(600000L));
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(objectMapper.writeValueAsString(userDto) + "\n" +
+                        objectMapper.writeValueAsString(other) + "\n"));
     }
 
     @Test
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class UserExistenceCacheTest {
+
+    @Test
+    void shouldRememberAndForgetUsers() {
+        UserExistenceCache cache = new UserExistenceCache(16);
+        cache.add(1L);
+        cache.add(2L);
+        assertThat(cache.contains(1L)).isTrue();
+        assertThat(cache.contains(3L)).isFalse();
+        cache.remove(1L);
+        assertThat(cache.contains(1L)).isFalse();
+        assertThat(cache.contains(2L)).isTrue();
+    }
+
+    @Test
+    void shouldNotAddUserRemovedDuringCheck() {
+        UserExistenceCache cache = new UserExistenceCache(16);
+        long version = cache.version();
+        cache.remove(1L);
+        cache.add(1L, version);
+        assertThat(cache.contains(1L)).isFalse();
+        cache.add(1L, cache.version());
+        assertThat(cache.contains(1L)).isTrue();
+    }
+
+    @Test
+    void shouldStayBounded() {
+        UserExistenceCache cache = new UserExistenceCache(1);
+        cache.add(1L);
+        cache.add(2L);
+        assertThat(cache.contains(1L)).isFalse();
+        assertThat(cache.contains(2L)).isTrue();
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -13,6 +14,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.CustomPageable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +22,9 @@ import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +32,8 @@ import static org.mockito.Mockito.when;
 public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserExistenceCache userExistenceCache;
     @InjectMocks
     private UserService userService;
     private User user;
@@ -43,6 +50,7 @@ public class UserServiceTest {
         when(userRepository.save(user)).thenReturn(user);
         assertThat(userService.createUser(userDto)).isEqualTo(UserMapper.toUserDto(user));
         verify(userRepository).save(user);
+        verify(userExistenceCache).add(1L);
     }
 
     @Test
@@ -67,12 +75,12 @@ public class UserServiceTest {
 
     @Test
     void shouldGetAllUsers() {
-        when(userRepository.findAll()).thenReturn(List.of(user));
-        List<UserDto> result = new ArrayList<>(userService.getAllUsers());
+        when(userRepository.findAllByOrderByIdAsc(CustomPageable.of(0, 5))).thenReturn(List.of(user));
+        List<UserDto> result = new ArrayList<>(userService.getAllUsers(0, 5));
         assertThat(result.isEmpty()).isFalse();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.equals(List.of(userDto))).isTrue();
-        verify(userRepository).findAll();
+        verify(userRepository).findAllByOrderByIdAsc(CustomPageable.of(0, 5));
     }
 
     @Test
@@ -106,6 +114,31 @@ public class UserServiceTest {
     void shouldDeleteUser() {
         when(userRepository.findById(1L)).thenReturn(Optional.ofNullable(user));
         assertThat(userService.deleteUser(1L)).isEqualTo(userDto);
-        verify(userRepository).deleteById(1L);
+        InOrder inOrder = inOrder(userExistenceCache, userRepository);
+        inOrder.verify(userRepository).deleteById(1L);
+        inOrder.verify(userExistenceCache).remove(1L);
+        verify(userExistenceCache).remove(1L);
+    }
+
+    @Test
+    void shouldCheckUserExistsFromCache() {
+        when(userExistenceCache.contains(1L)).thenReturn(true);
+        userService.checkUserExists(1L);
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void shouldCheckUserExistsAndRememberIt() {
+        when(userExistenceCache.version()).thenReturn(3L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        userService.checkUserExists(1L);
+        verify(userExistenceCache).add(1L, 3L);
+    }
+
+    @Test
+    void shouldCheckUserNotExists() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+        assertThrows(NotFoundException.class, () -> userService.checkUserExists(1L));
+        verify(userExistenceCache, never()).add(anyLong(), anyLong());
     }
 }
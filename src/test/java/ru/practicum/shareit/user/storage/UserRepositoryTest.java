@@ -4,7 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.user.dto.UserView;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.CustomPageable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -25,4 +31,23 @@ public class UserRepositoryTest {
         assertThat(userRepository.existsByEmail("test@test.ru")).isTrue();
         assertThat(userRepository.existsByEmail("abc@abc.com")).isFalse();
     }
+
+    @Test
+    void shouldStreamAllUsersInIdOrder() {
+        User first = userRepository.save(user);
+        User second = userRepository.save(User.builder().name("other").email("other@test.ru").build());
+        try (Stream<UserView> users = userRepository.streamAll()) {
+            assertThat(users.map(UserView::getId).collect(Collectors.toList()))
+                    .isEqualTo(List.of(first.getId(), second.getId()));
+        }
+    }
+
+    @Test
+    void shouldFindAllUsersPage() {
+        userRepository.save(user);
+        User second = userRepository.save(User.builder().name("other").email("other@test.ru").build());
+        List<User> result = userRepository.findAllByOrderByIdAsc(CustomPageable.of(1, 5));
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getId()).isEqualTo(second.getId());
+    }
 }
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StatsLoggerTest {
+    @Mock
+    private ObjectProvider<StatsSource> sources;
+
+    @Test
+    void shouldJoinStatsOfAllSources() {
+        StatsSource first = () -> "кэш: попаданий 1";
+        StatsSource second = () -> "лента: промахов 2";
+        when(sources.orderedStream()).thenReturn(Stream.of(first, second));
+        assertThat(new StatsLogger(sources).formatStats()).isEqualTo("кэш: попаданий 1; лента: промахов 2");
+    }
+
+    @Test
+    void shouldFormatNothingWithoutSources() {
+        when(sources.orderedStream()).thenReturn(Stream.empty());
+        assertThat(new StatsLogger(sources).formatStats()).isEmpty();
+    }
+}
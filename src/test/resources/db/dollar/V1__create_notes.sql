@@ -0,0 +1,2 @@
+CREATE TABLE notes (text VARCHAR(20));
+INSERT INTO notes (text) VALUES ($$a;b$$);